@@ -0,0 +1,85 @@
+package FenceOreGen;
+
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Block selection for one generator level: the old boxed map walk against the compiled alias table.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockSelectionBenchmark {
+
+    @Param({"2", "8", "32", "128"})
+    public int tableSize;
+
+    private Map<Material, Double> chances;
+    private BlockSampler sampler;
+    private final Random random = new Random();
+    private long counter;
+
+    @Setup
+    public void setup() {
+        Random seeded = new Random(42);
+        Material[] blocks = Arrays.stream(Material.values())
+                .filter(material -> !material.isLegacy() && material.isBlock())
+                .limit(tableSize)
+                .toArray(Material[]::new);
+
+        chances = new HashMap<>();
+        for (Material material : blocks) {
+            chances.put(material, 1.0 + seeded.nextInt(100));
+        }
+        sampler = BlockSampler.compile(chances);
+    }
+
+    /**
+     * The selection loop GeneratorManager.getRandomBlock used before the alias table.
+     */
+    @Benchmark
+    public Material legacyLinearWalk() {
+        double total = chances.values().stream().mapToDouble(Double::doubleValue).sum();
+        double randomValue = random.nextDouble() * total;
+        double current = 0;
+        for (Map.Entry<Material, Double> entry : chances.entrySet()) {
+            current += entry.getValue();
+            if (randomValue <= current) {
+                return entry.getKey();
+            }
+        }
+        return Material.STONE;
+    }
+
+    @Benchmark
+    public Material aliasSampler() {
+        return sampler.sample();
+    }
+
+    /**
+     * Same table driven by the deterministic rng.mode, one position and an increasing counter.
+     */
+    @Benchmark
+    public Material aliasSamplerDeterministic() {
+        return sampler.getMaterial(sampler.sampleIndex(SpawnRandom.uniform(42L, 0x1234L, counter++)));
+    }
+}
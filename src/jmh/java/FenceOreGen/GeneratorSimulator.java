@@ -0,0 +1,109 @@
+package FenceOreGen;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Offline replay of the generator tables, no server needed.
+ * Compiles generator-levels from a config file with the production code, draws every world table and level
+ * N times through {@link BlockSampler#sampleIndex(double)} and {@link BlockSampler#recordDraw(int)} like a spawn does,
+ * then prints observed against configured probabilities, draws per second and bytes allocated per draw.
+ * Exits with status 1 when an observed probability is more than {@link #MAX_Z} standard errors off.
+ * <p>
+ * Usage: {@code GeneratorSimulator [config.yml] [draws per level] [fast|deterministic]}
+ */
+public final class GeneratorSimulator {
+    private static final double MAX_Z = 5.0;
+    private static final long SEED = 42L;
+
+    // Keeps the warm-up loop from being optimised away
+    private static volatile int blackhole;
+
+    private GeneratorSimulator() {
+    }
+
+    public static void main(String[] args) throws IOException, InvalidConfigurationException {
+        File configFile = new File(args.length > 0 ? args[0] : "src/main/resources/config.yml");
+        long draws = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000L;
+        boolean deterministic = args.length > 2 && "deterministic".equalsIgnoreCase(args[2]);
+
+        YamlConfiguration config = new YamlConfiguration();
+        config.load(configFile);
+        Logger logger = Logger.getLogger("GeneratorSimulator");
+        logger.setLevel(Level.WARNING);
+        Map<String, BlockSampler[]> tables = new TreeMap<>(GeneratorSnapshot.compileTables(config, logger));
+        if (tables.isEmpty()) {
+            System.err.println("No generator-levels tables in " + configFile);
+            System.exit(2);
+        }
+
+        System.out.printf(Locale.ROOT, "%s: %d tables, %,d draws per level, rng %s%n",
+                configFile, tables.size(), draws, deterministic ? "deterministic" : "fast");
+
+        boolean failed = false;
+        for (Map.Entry<String, BlockSampler[]> entry : tables.entrySet()) {
+            BlockSampler[] levels = entry.getValue();
+            for (int level = 1; level < levels.length; level++) {
+                BlockSampler sampler = levels[level];
+                // Unconfigured levels share the level 1 table
+                if (sampler == null || (level != 1 && sampler == levels[1])) continue;
+                failed |= simulate(entry.getKey(), level, sampler, draws, deterministic);
+            }
+        }
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * @return true if a material is outside the tolerance
+     */
+    private static boolean simulate(String table, int level, BlockSampler sampler, long draws, boolean deterministic) {
+        // Warm up so the timing covers compiled code, not the interpreter
+        long warmup = Math.min(draws, 200_000L);
+        int sink = 0;
+        for (long i = 0; i < warmup; i++) {
+            sink += sampler.sampleIndex(next(deterministic, level, i));
+        }
+        blackhole = sink;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (long i = 0; i < draws; i++) {
+            int index = sampler.sampleIndex(next(deterministic, level, warmup + i));
+            sampler.recordDraw(index);
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf(Locale.ROOT, "%n%s level %d: %.1f M draws/s, %.3f B/draw%n", table, level,
+                draws * 1e3 / Math.max(1, nanos), (double) allocated / draws);
+
+        boolean failed = false;
+        for (int i = 0; i < sampler.size(); i++) {
+            double expected = sampler.getChance(i);
+            double observed = (double) sampler.getDrawCount(i) / draws;
+            double stdError = Math.sqrt(expected * (1 - expected) / draws);
+            double z = stdError > 0 ? (observed - expected) / stdError : 0;
+            boolean outside = Math.abs(z) > MAX_Z;
+            failed |= outside;
+            System.out.printf(Locale.ROOT, "  %-28s configured %8.4f%%  observed %8.4f%%  z %6.2f%s%n",
+                    sampler.getMaterial(i).name(), expected * 100, observed * 100, z, outside ? "  <-- OFF" : "");
+        }
+        return failed;
+    }
+
+    private static double next(boolean deterministic, int level, long counter) {
+        return deterministic ? SpawnRandom.uniform(SEED, level, counter) : ThreadLocalRandom.current().nextDouble();
+    }
+}
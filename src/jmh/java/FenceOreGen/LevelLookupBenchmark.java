@@ -0,0 +1,100 @@
+package FenceOreGen;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Player level lookups: boxed HashMap against UuidIntMap.
+ * Setup also prints the approximate retained heap of both maps so the footprint shows up next to the scores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelLookupBenchmark {
+
+    @Param({"1000", "100000"})
+    public int players;
+
+    private UUID[] probes;
+    private Map<UUID, Integer> boxed;
+    private UuidIntMap primitive;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        UUID[] ids = new UUID[players];
+        for (int i = 0; i < players; i++) {
+            ids[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+
+        // Fresh UUID instances so lookups hash and compare instead of hitting identity
+        probes = new UUID[4096];
+        for (int i = 0; i < probes.length; i++) {
+            UUID id = ids[random.nextInt(players)];
+            probes[i] = new UUID(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        }
+
+        long before = usedHeap();
+        boxed = new HashMap<>();
+        for (int i = 0; i < players; i++) {
+            boxed.put(ids[i], 1 + random.nextInt(1000));
+        }
+        long afterBoxed = usedHeap();
+
+        primitive = new UuidIntMap();
+        for (int i = 0; i < players; i++) {
+            primitive.put(ids[i], 1 + random.nextInt(1000));
+        }
+        long afterPrimitive = usedHeap();
+
+        // The UUID keys themselves are shared with ids[], so count them for the boxed map explicitly
+        long uuidBytes = (long) players * 32;
+        System.out.printf("%n[footprint] players=%d HashMap<UUID,Integer>~%d KiB (+%d KiB keys) UuidIntMap~%d KiB%n",
+                players, (afterBoxed - before) / 1024, uuidBytes / 1024, (afterPrimitive - afterBoxed) / 1024);
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private UUID nextProbe() {
+        cursor = (cursor + 1) & (probes.length - 1);
+        return probes[cursor];
+    }
+
+    @Benchmark
+    public int hashMapGet() {
+        return boxed.getOrDefault(nextProbe(), 1);
+    }
+
+    @Benchmark
+    public int uuidIntMapGet() {
+        return primitive.get(nextProbe(), 1);
+    }
+}
@@ -0,0 +1,110 @@
+package FenceOreGen;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Saving and loading large player datasets through each storage backend.
+ * "full" rewrites every player, "batch" is a typical flush of 100 dirty players.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LevelStorageBenchmark {
+
+    @Param({"10000", "50000"})
+    public int players;
+
+    @Param({"yaml", "sqlite"})
+    public String backend;
+
+    private File directory;
+    private LevelStorage storage;
+    private Map<UUID, Integer> dataset;
+    private Map<UUID, Integer> dirtyBatch;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("fenceoregen-bench").toFile();
+        Random random = new Random(42);
+        dataset = new HashMap<>();
+        for (int i = 0; i < players; i++) {
+            dataset.put(new UUID(random.nextLong(), random.nextLong()), 1 + random.nextInt(20));
+        }
+        dirtyBatch = new HashMap<>();
+        dataset.keySet().stream().limit(100).forEach(uuid -> dirtyBatch.put(uuid, 21));
+
+        storage = open();
+        storage.saveAll(dataset);
+    }
+
+    private LevelStorage open() throws IOException {
+        if ("sqlite".equals(backend)) {
+            return new SqliteLevelStorage(new File(directory, "playerdata.db"));
+        }
+        File file = new File(directory, "playerdata.yml");
+        return new YamlLevelStorage(file, YamlConfiguration.loadConfiguration(file), Logger.getLogger("bench"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storage.close();
+        try (var paths = Files.walk(directory.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(java.nio.file.Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public void saveFull() throws IOException {
+        storage.saveAll(dataset);
+    }
+
+    @Benchmark
+    public void saveBatch() throws IOException {
+        storage.saveAll(dirtyBatch);
+    }
+
+    @Benchmark
+    public Map<UUID, Integer> loadAll() throws IOException {
+        return storage.loadAll();
+    }
+
+    /**
+     * Cold start: open the backend from disk and read everything, like a server boot used to do.
+     */
+    @Benchmark
+    public Map<UUID, Integer> reopenAndLoadAll() throws IOException {
+        LevelStorage reopened = open();
+        try {
+            return reopened.loadAll();
+        } finally {
+            reopened.close();
+        }
+    }
+}
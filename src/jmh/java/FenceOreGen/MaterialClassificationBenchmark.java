@@ -0,0 +1,77 @@
+package FenceOreGen;
+
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Material classification as done by the listeners, over a mix of 1024 random materials per invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MaterialClassificationBenchmark {
+    private Material[] materials;
+    private Block between;
+    private Block outside;
+
+    @Setup
+    public void setup() {
+        Material[] all = Material.values();
+        Random random = new Random(42);
+        materials = new Material[1024];
+        for (int i = 0; i < materials.length; i++) {
+            // Roughly one in eight is a fence so both branches stay hot
+            materials[i] = (i & 7) == 0 ? Material.OAK_FENCE : all[random.nextInt(all.length)];
+        }
+
+        StandInWorld world = new StandInWorld();
+        world.set(0, 64, 0, Material.OAK_FENCE);
+        world.set(2, 64, 0, Material.WATER);
+        between = world.block(1, 64, 0);
+        outside = world.block(10, 64, 10);
+    }
+
+    @Benchmark
+    public void nameContainsFence(Blackhole blackhole) {
+        for (Material material : materials) {
+            blackhole.consume(material.name().contains("FENCE"));
+        }
+    }
+
+    @Benchmark
+    public void fenceUtilsIsFence(Blackhole blackhole) {
+        for (Material material : materials) {
+            blackhole.consume(FenceUtils.isFence(material));
+        }
+    }
+
+    /**
+     * Includes the proxy dispatch of the stand-in blocks, so compare it against itself across changes.
+     */
+    @Benchmark
+    public boolean isBetweenFenceAndWaterHit() {
+        return FenceUtils.isBetweenFenceAndWater(between);
+    }
+
+    @Benchmark
+    public boolean isBetweenFenceAndWaterMiss() {
+        return FenceUtils.isBetweenFenceAndWater(outside);
+    }
+}
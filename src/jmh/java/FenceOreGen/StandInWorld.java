@@ -0,0 +1,133 @@
+package FenceOreGen;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Minimal headless stand-in for a Bukkit world: a sparse map of block types plus proxy {@link Block},
+ * {@link Chunk} and {@link World} objects that answer the handful of calls the generator code makes.
+ * Every chunk reports as loaded.
+ * Anything else throws, so a benchmark that drifts onto unsupported API fails loudly.
+ */
+final class StandInWorld {
+    private final Map<Long, Material> blocks = new HashMap<>();
+    private final UUID uid = UUID.randomUUID();
+    private final World world;
+
+    StandInWorld() {
+        this.world = (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[]{World.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getUID" -> uid;
+                    case "getName" -> "standin";
+                    case "getEnvironment" -> World.Environment.NORMAL;
+                    case "getMinHeight" -> -64;
+                    case "getMaxHeight" -> 320;
+                    case "isChunkLoaded" -> true;
+                    case "getChunkAt" -> chunk((Integer) args[0], (Integer) args[1]);
+                    case "hashCode" -> uid.hashCode();
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "StandInWorld";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    World world() {
+        return world;
+    }
+
+    void set(int x, int y, int z, Material material) {
+        blocks.put(BlockKeys.pack(x, y, z), material);
+    }
+
+    Material typeAt(int x, int y, int z) {
+        return blocks.getOrDefault(BlockKeys.pack(x, y, z), Material.AIR);
+    }
+
+    /**
+     * Scheduler whose sync and async tasks all run inline on the calling thread.
+     */
+    static TaskScheduler inlineScheduler() {
+        BukkitScheduler scheduler = (BukkitScheduler) Proxy.newProxyInstance(BukkitScheduler.class.getClassLoader(),
+                new Class<?>[]{BukkitScheduler.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "runTask", "runTaskAsynchronously" -> {
+                        ((Runnable) args[1]).run();
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        Server server = (Server) Proxy.newProxyInstance(Server.class.getClassLoader(), new Class<?>[]{Server.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getScheduler" -> scheduler;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        Plugin plugin = (Plugin) Proxy.newProxyInstance(Plugin.class.getClassLoader(), new Class<?>[]{Plugin.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getServer" -> server;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        return new TaskScheduler(plugin);
+    }
+
+    Chunk chunk(int chunkX, int chunkZ) {
+        return (Chunk) Proxy.newProxyInstance(Chunk.class.getClassLoader(), new Class<?>[]{Chunk.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getX" -> chunkX;
+                    case "getZ" -> chunkZ;
+                    case "getWorld" -> world;
+                    case "getChunkSnapshot" -> snapshot(chunkX, chunkZ);
+                    case "toString" -> "StandInChunk[" + chunkX + "," + chunkZ + "]";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private ChunkSnapshot snapshot(int chunkX, int chunkZ) {
+        return (ChunkSnapshot) Proxy.newProxyInstance(ChunkSnapshot.class.getClassLoader(),
+                new Class<?>[]{ChunkSnapshot.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "isSectionEmpty" -> false;
+                    case "getBlockType" -> typeAt((chunkX << 4) + (Integer) args[0], (Integer) args[1],
+                            (chunkZ << 4) + (Integer) args[2]);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    Block block(int x, int y, int z) {
+        return (Block) Proxy.newProxyInstance(Block.class.getClassLoader(), new Class<?>[]{Block.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getType" -> typeAt(x, y, z);
+                    case "getX" -> x;
+                    case "getY" -> y;
+                    case "getZ" -> z;
+                    case "getWorld" -> world;
+                    case "getLocation" -> new Location(world, x, y, z);
+                    case "getRelative" -> relative(x, y, z, args);
+                    case "hashCode" -> Long.hashCode(BlockKeys.pack(x, y, z));
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "StandInBlock[" + x + "," + y + "," + z + "]";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private Block relative(int x, int y, int z, Object[] args) {
+        if (args.length == 1 && args[0] instanceof BlockFace face) {
+            return block(x + face.getModX(), y + face.getModY(), z + face.getModZ());
+        }
+        if (args.length == 2 && args[0] instanceof BlockFace face) {
+            int distance = (Integer) args[1];
+            return block(x + face.getModX() * distance, y + face.getModY() * distance, z + face.getModZ() * distance);
+        }
+        return block(x + (Integer) args[0], y + (Integer) args[1], z + (Integer) args[2]);
+    }
+}
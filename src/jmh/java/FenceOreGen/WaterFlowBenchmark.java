@@ -0,0 +1,83 @@
+package FenceOreGen;
+
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The accept/reject decision of WaterInteractionListener.onWaterFlow for flows far away from any generator:
+ * the old five-neighbour scan against the generator registry lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WaterFlowBenchmark {
+    private static final BlockFace[] HORIZONTAL_FACES = {
+            BlockFace.NORTH, BlockFace.SOUTH, BlockFace.EAST, BlockFace.WEST
+    };
+
+    private Block[] oceanFlows;
+    private GeneratorRegistry registry;
+
+    @Setup
+    public void setup() {
+        StandInWorld world = new StandInWorld();
+        registry = new GeneratorRegistry(StandInWorld.inlineScheduler());
+
+        // A few hundred generators elsewhere in the world
+        for (int i = 0; i < 500; i++) {
+            world.set(i * 4, 64, 1000, Material.OAK_FENCE);
+            registry.addTrigger(world.block(i * 4, 64, 1000));
+        }
+
+        oceanFlows = new Block[256];
+        for (int i = 0; i < oceanFlows.length; i++) {
+            world.set(i, 62, -200, Material.WATER);
+            oceanFlows[i] = world.block(i, 62, -200);
+        }
+        // The first flow in a chunk scans it and its neighbours, inline with the stand-in scheduler
+        for (Block to : oceanFlows) {
+            registry.isCandidate(to);
+        }
+    }
+
+    @Benchmark
+    public void legacyNeighbourScan(Blackhole blackhole) {
+        for (Block to : oceanFlows) {
+            boolean generator = false;
+            for (BlockFace face : HORIZONTAL_FACES) {
+                if (to.getRelative(face).getType().name().contains("FENCE")) {
+                    generator = true;
+                    break;
+                }
+            }
+            if (!generator) {
+                generator = to.getRelative(BlockFace.DOWN).getType().name().contains("FENCE");
+            }
+            blackhole.consume(generator);
+        }
+    }
+
+    @Benchmark
+    public void registryLookup(Blackhole blackhole) {
+        for (Block to : oceanFlows) {
+            blackhole.consume(registry.isCandidate(to));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package FenceOreGen;
+
+/**
+ * Packs block and chunk coordinates into single longs for primitive lookups.
+ * Block keys use 26 bits for x and z and 12 bits for y, which covers the full world border and build height.
+ */
+public final class BlockKeys {
+
+    private BlockKeys() {
+    }
+
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int x(long key) {
+        return (int) (key >> 38);
+    }
+
+    public static int y(long key) {
+        return (int) (key << 52 >> 52);
+    }
+
+    public static int z(long key) {
+        return (int) (key << 26 >> 38);
+    }
+
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    public static long chunkKeyOf(long blockKey) {
+        return chunkKey(x(blockKey) >> 4, z(blockKey) >> 4);
+    }
+
+    public static int chunkX(long chunkKey) {
+        return (int) (chunkKey >> 32);
+    }
+
+    public static int chunkZ(long chunkKey) {
+        return (int) chunkKey;
+    }
+}
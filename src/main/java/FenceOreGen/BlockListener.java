@@ -1,22 +1,25 @@
 package FenceOreGen;
 
-import com.bgsoftware.superiorskyblock.api.SuperiorSkyblockAPI;
-import com.bgsoftware.superiorskyblock.api.island.Island;
 import org.bukkit.Material;
-import org.bukkit.World;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerBucketFillEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.metadata.FixedMetadataValue;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 public class BlockListener implements Listener {
 
@@ -28,26 +31,19 @@ public class BlockListener implements Listener {
 
     /**
      * Xử lý sự kiện người chơi đặt block.
-     * Đánh dấu block bằng metadata và cố gắng cập nhật level đảo nếu SuperiorSkyblock2 được bật.
+     * Đánh dấu block do người chơi đặt (lưu trong dữ liệu chunk).
      */
     @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
     public void onBlockPlace(BlockPlaceEvent event) {
         Block block = event.getBlockPlaced();
 
-        // Gắn metadata để đánh dấu block do người chơi đặt
-        block.setMetadata("placed-by-player", new FixedMetadataValue(plugin, true));
-
-        // Cập nhật level đảo nếu đang ở trên đảo và SuperiorSkyblock2 được bật
-        if (plugin.getServer().getPluginManager().isPluginEnabled("SuperiorSkyblock2")) {
-            Island island = SuperiorSkyblockAPI.getIslandAt(block.getLocation());
-            if (island != null) {
-                // Bạn có thể muốn thêm một phương thức cụ thể vào SuperiorSkyblockAPI để tính toán lại level
-                // hoặc đảm bảo rằng việc đặt block tự động đóng góp vào level đảo.
-                // Dòng hiện tại `island.getIslandLevel();` chỉ lấy level chứ không cập nhật nó.
-                // Hãy xem xét cách đặt block nên ảnh hưởng đến level đảo dựa trên thiết kế plugin của bạn.
-                island.getIslandLevel(); // Dòng này hiện tại chỉ lấy level.
-            }
+        // Đặt block đè lên nước: hủy các lần spawn đang chờ quanh nguồn nước đó
+        if (FenceUtils.isWater(event.getBlockReplacedState().getType())) {
+            plugin.getGeneratorManager().getSpawnQueue().cancelAround(block);
         }
+
+        // Đánh dấu block do người chơi đặt, lưu theo chunk và còn sau khi khởi động lại
+        plugin.getPlacedBlocks().mark(block);
     }
 
     /**
@@ -59,6 +55,8 @@ public class BlockListener implements Listener {
     public void onBlockBreak(BlockBreakEvent event) {
         Block block = event.getBlock();
         // Player player = event.getPlayer(); // Không còn cần thiết nếu không tạo item tùy chỉnh
+        unregisterTrigger(block);
+        plugin.getPlacedBlocks().unmark(block);
 
         // Kiểm tra xem block có nên được xử lý bởi FenceOreGen (nghĩa là nó là quặng hoặc block có thể thay thế)
         if (shouldProcess(block)) {
@@ -74,6 +72,83 @@ public class BlockListener implements Listener {
         // Block sẽ tự động bị phá hủy và rơi vật phẩm gốc theo mặc định của Minecraft.
     }
 
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        unregisterTrigger(event.getBlock());
+        plugin.getPlacedBlocks().unmark(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        event.blockList().forEach(this::onBlockDestroyed);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        event.blockList().forEach(this::onBlockDestroyed);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketFill(PlayerBucketFillEvent event) {
+        // Múc nguồn nước đi: các lần spawn đang chờ quanh nó không còn hợp lệ
+        plugin.getGeneratorManager().getSpawnQueue().cancelAround(event.getBlockClicked());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        onBlocksMoved(event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        onBlocksMoved(event.getBlocks(), event.getDirection());
+    }
+
+    /**
+     * Piston đẩy hoặc kéo hàng rào: chuyển chúng trong chỉ mục máy tạo sang vị trí mới, kèm bản ghi máy tạo.
+     * Gỡ hết các vị trí cũ trước rồi mới thêm vị trí mới, vì block này có thể chiếm chỗ cũ của block kia.
+     *
+     * @param blocks    Các block bị di chuyển, vẫn còn ở vị trí cũ.
+     * @param direction Hướng di chuyển.
+     */
+    private void onBlocksMoved(List<Block> blocks, BlockFace direction) {
+        List<Block> targets = new ArrayList<>();
+        List<GeneratorRecord> records = new ArrayList<>();
+        for (Block block : blocks) {
+            if (!FenceUtils.isTrigger(block.getType())) continue;
+            records.add(plugin.getGeneratorStore().get(block));
+            targets.add(block.getRelative(direction));
+            unregisterTrigger(block);
+        }
+
+        for (int i = 0; i < targets.size(); i++) {
+            Block target = targets.get(i);
+            plugin.getGeneratorRegistry().addTrigger(target);
+            GeneratorRecord record = records.get(i);
+            if (record != null) {
+                plugin.getGeneratorStore().create(target, record.getOwner(), record.getTier());
+            }
+        }
+    }
+
+    private void onBlockDestroyed(Block block) {
+        unregisterTrigger(block);
+        plugin.getPlacedBlocks().unmark(block);
+    }
+
+    /**
+     * Xóa hàng rào khỏi chỉ mục máy tạo khi nó bị phá hủy và hủy các lần spawn đang chờ quanh nó.
+     *
+     * @param block Block bị phá hủy.
+     */
+    private void unregisterTrigger(Block block) {
+        if (FenceUtils.isTrigger(block.getType())) {
+            plugin.getGeneratorRegistry().removeTrigger(block);
+            plugin.getGeneratorStore().remove(block);
+            plugin.getGeneratorManager().getSpawnQueue().cancelAround(block);
+        }
+    }
+
     // Các phương thức sau đây không còn được sử dụng trong onBlockBreak nhưng vẫn được giữ lại
     // phòng trường hợp bạn có logic khác sử dụng chúng hoặc muốn tái sử dụng sau này.
     // Nếu bạn chắc chắn không cần chúng, có thể xóa.
@@ -127,8 +202,7 @@ public class BlockListener implements Listener {
         }
 
         // Kiểm tra xem block có phải là quặng mặc định của Minecraft hay là một block có thể thay thế đã cấu hình
-        return block.getType().toString().endsWith("_ORE") ||
-                plugin.getGeneratorManager().getReplaceableBlocks().contains(block.getType());
+        return MaterialFlags.current().is(block.getType(), MaterialFlags.ORE | MaterialFlags.REPLACEABLE);
     }
 
     /**
@@ -140,20 +214,4 @@ public class BlockListener implements Listener {
         // Ví dụ: block.getWorld().playSound(block.getLocation(), Sound.BLOCK_STONE_BREAK, 1.0f, 1.0f);
         // Bạn sẽ cần quyết định các hạt và âm thanh cụ thể.
     }
-
-    /**
-     * Xác định loại thế giới (overworld, nether, the_end) dựa trên môi trường của nó.
-     * Mặc định là "overworld" nếu thế giới là null hoặc môi trường của nó không xác định.
-     *
-     * @param world Đối tượng World.
-     * @return Một chuỗi đại diện cho loại thế giới.
-     */
-    private String getWorldType(World world) {
-        // Sử dụng Objects.requireNonNullElse để xử lý null một cách rõ ràng hơn.
-        return switch (Objects.requireNonNullElse(world, plugin.getServer().getWorlds().get(0)).getEnvironment()) {
-            case NETHER -> "nether";
-            case THE_END -> "the_end";
-            default -> "overworld";
-        };
-    }
 }
\ No newline at end of file
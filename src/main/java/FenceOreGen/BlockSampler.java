@@ -0,0 +1,141 @@
+package FenceOreGen;
+
+import org.bukkit.Material;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Immutable weighted block table for one (world type, level) pair.
+ * Built once with Vose's alias method so a draw is O(1) and allocation-free.
+ * Also carries per-material draw counters for {@link GeneratorMetrics}; they reset whenever the table is rebuilt.
+ */
+public final class BlockSampler {
+    private final Material[] materials;
+    // Configured chance of each material, normalised to sum to 1
+    private final double[] chances;
+    private final double[] probability;
+    private final int[] alias;
+    private final LongAdder[] draws;
+
+    private BlockSampler(Material[] materials, double[] chances, double[] probability, int[] alias) {
+        this.materials = materials;
+        this.chances = chances;
+        this.probability = probability;
+        this.alias = alias;
+        this.draws = new LongAdder[materials.length];
+        for (int i = 0; i < draws.length; i++) {
+            draws[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Compiles a chance map into a sampler. Entries with a non-positive chance are ignored.
+     *
+     * @return the sampler, or null if no entry has a positive chance
+     */
+    public static BlockSampler compile(Map<Material, Double> chances) {
+        List<Material> keys = new ArrayList<>(chances.size());
+        List<Double> weights = new ArrayList<>(chances.size());
+        double total = 0;
+        for (Map.Entry<Material, Double> entry : chances.entrySet()) {
+            double weight = entry.getValue();
+            if (!(weight > 0) || Double.isInfinite(weight)) continue;
+            keys.add(entry.getKey());
+            weights.add(weight);
+            total += weight;
+        }
+
+        int n = keys.size();
+        if (n == 0) return null;
+
+        Material[] materials = keys.toArray(new Material[0]);
+        double[] normalised = new double[n];
+        double[] probability = new double[n];
+        int[] alias = new int[n];
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < n; i++) {
+            normalised[i] = weights.get(i) / total;
+            scaled[i] = weights.get(i) * n / total;
+            if (scaled[i] < 1.0) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        // Anything left over is 1.0 up to rounding error
+        while (largeSize > 0) {
+            int i = large[--largeSize];
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+        while (smallSize > 0) {
+            int i = small[--smallSize];
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+
+        return new BlockSampler(materials, normalised, probability, alias);
+    }
+
+    /**
+     * Draws a material using the calling thread's {@link ThreadLocalRandom}.
+     */
+    public Material sample() {
+        return materials[sampleIndex(ThreadLocalRandom.current().nextDouble())];
+    }
+
+    /**
+     * Maps a uniform value in [0, 1) to an index into {@link #getMaterial(int)}.
+     */
+    public int sampleIndex(double u) {
+        double scaled = u * materials.length;
+        int column = (int) scaled;
+        if (column >= materials.length) column = materials.length - 1;
+        return (scaled - column) < probability[column] ? column : alias[column];
+    }
+
+    public void recordDraw(int index) {
+        draws[index].increment();
+    }
+
+    public long getDrawCount(int index) {
+        return draws[index].sum();
+    }
+
+    public int size() {
+        return materials.length;
+    }
+
+    public Material getMaterial(int index) {
+        return materials[index];
+    }
+
+    /**
+     * Configured probability of the material at {@code index}, in [0, 1].
+     */
+    public double getChance(int index) {
+        return chances[index];
+    }
+}
@@ -0,0 +1,105 @@
+package FenceOreGen;
+
+import org.bukkit.Chunk;
+import org.bukkit.World;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Data kept in each chunk's PersistentDataContainer and held in memory only while the chunk is loaded.
+ * Subclasses decode and encode one chunk; loading, unloading and saving the loaded chunks is shared here.
+ *
+ * @param <T> in-memory data of one chunk
+ */
+abstract class ChunkDataStore<T> {
+    final FenceOreGen plugin;
+    // world -> chunk key -> data, only for loaded chunks that have any
+    final Map<UUID, Map<Long, T>> worlds = new ConcurrentHashMap<>();
+
+    ChunkDataStore(FenceOreGen plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Decodes the data stored in a chunk, or returns null when it has none.
+     */
+    abstract T read(Chunk chunk);
+
+    /**
+     * Writes the data back into the chunk if it changed. Runs on the thread that owns the chunk.
+     */
+    abstract void write(Chunk chunk, T data);
+
+    /**
+     * Reads the data stored in a chunk that just loaded.
+     */
+    public void loadChunk(Chunk chunk) {
+        T data = read(chunk);
+        if (data == null) return;
+        worlds.computeIfAbsent(chunk.getWorld().getUID(), k -> new ConcurrentHashMap<>())
+                .put(BlockKeys.chunkKey(chunk.getX(), chunk.getZ()), data);
+    }
+
+    /**
+     * Loads the data of chunks that were loaded before the plugin enabled.
+     */
+    public void loadLoadedChunks() {
+        TaskScheduler scheduler = plugin.getTaskScheduler();
+        for (World world : plugin.getServer().getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                if (scheduler.isFolia()) {
+                    scheduler.runAt(world, chunk.getX(), chunk.getZ(), () -> loadChunk(chunk));
+                } else {
+                    loadChunk(chunk);
+                }
+            }
+        }
+    }
+
+    public void unloadChunk(Chunk chunk) {
+        Map<Long, T> chunks = worlds.get(chunk.getWorld().getUID());
+        if (chunks == null) return;
+
+        T data = chunks.remove(BlockKeys.chunkKey(chunk.getX(), chunk.getZ()));
+        if (data != null) {
+            write(chunk, data);
+        }
+    }
+
+    /**
+     * Writes changed data of every loaded chunk in the world into the chunk containers.
+     */
+    public void saveWorld(World world) {
+        Map<Long, T> chunks = worlds.get(world.getUID());
+        if (chunks == null) return;
+
+        for (Map.Entry<Long, T> entry : chunks.entrySet()) {
+            int chunkX = BlockKeys.chunkX(entry.getKey());
+            int chunkZ = BlockKeys.chunkZ(entry.getKey());
+            if (world.isChunkLoaded(chunkX, chunkZ)) {
+                write(world.getChunkAt(chunkX, chunkZ), entry.getValue());
+            }
+        }
+    }
+
+    public void saveAll() {
+        for (World world : plugin.getServer().getWorlds()) {
+            saveWorld(world);
+        }
+    }
+
+    public void unloadWorld(World world) {
+        worlds.remove(world.getUID());
+    }
+
+    /**
+     * Data of the loaded chunk holding the block position, or null.
+     */
+    T get(World world, int x, int z) {
+        Map<Long, T> chunks = worlds.get(world.getUID());
+        if (chunks == null) return null;
+        return chunks.get(BlockKeys.chunkKey(x >> 4, z >> 4));
+    }
+}
@@ -0,0 +1,56 @@
+package FenceOreGen;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldSaveEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+public class ChunkListener implements Listener {
+    private final FenceOreGen plugin;
+
+    public ChunkListener(FenceOreGen plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        plugin.getGeneratorStore().loadChunk(event.getChunk());
+        plugin.getPlacedBlocks().loadChunk(event.getChunk());
+        plugin.getGeneratorManager().getSpawnQueue().onChunkLoad(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        plugin.getGeneratorRegistry().unloadChunk(event.getChunk());
+        plugin.getGeneratorStore().unloadChunk(event.getChunk());
+        plugin.getPlacedBlocks().unloadChunk(event.getChunk());
+        plugin.getIslandLevels().unloadChunk(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        plugin.getGeneratorManager().loadWorld(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldSave(WorldSaveEvent event) {
+        plugin.getGeneratorStore().saveWorld(event.getWorld());
+        plugin.getPlacedBlocks().saveWorld(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        plugin.getGeneratorRegistry().unloadWorld(event.getWorld());
+        plugin.getGeneratorManager().getSpawnQueue().unloadWorld(event.getWorld());
+        plugin.getGeneratorManager().unloadWorld(event.getWorld());
+        plugin.getGeneratorStore().saveWorld(event.getWorld());
+        plugin.getGeneratorStore().unloadWorld(event.getWorld());
+        plugin.getPlacedBlocks().saveWorld(event.getWorld());
+        plugin.getPlacedBlocks().unloadWorld(event.getWorld());
+        plugin.getIslandLevels().unloadWorld(event.getWorld());
+    }
+}
@@ -2,21 +2,20 @@ package FenceOreGen;
 
 import net.milkbowl.vault.economy.Economy;
 import org.bukkit.ChatColor;
-import org.bukkit.World;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
 import java.util.UUID;
 import java.util.logging.Level;
 
-@SuppressWarnings({"MismatchedQueryAndUpdateOfCollection", "ResultOfMethodCallIgnored"})
+@SuppressWarnings("ResultOfMethodCallIgnored")
 public class FenceCommand implements CommandExecutor {
-    private final Map<Integer, Integer> upgradeCosts = new HashMap<>();
     private final FenceOreGen plugin;
     private final MessageManager messages;
 
@@ -55,6 +54,7 @@ public class FenceCommand implements CommandExecutor {
             case "upgrade" -> handleUpgrade(player);
             case "level" -> handleCheckLevel(player, args);
             case "reload" -> handleReload(player);
+            case "stats" -> handleStats(player, args);
             default -> {
                 sendHelpMenu(player);
                 yield true;
@@ -68,28 +68,98 @@ public class FenceCommand implements CommandExecutor {
             return true;
         }
 
-        try {
-            // Reload config chính
-            plugin.reloadConfig();
+        // Ghi dữ liệu người chơi đang chờ (level trong bộ nhớ là bản mới nhất)
+        plugin.savePlayerLevels();
 
-            // Reload messages
-            plugin.getGeneratorManager().reload();
+        // Đọc và biên dịch config trên luồng nền, bảng mới chỉ được hoán đổi khi đã hợp lệ
+        plugin.reloadGeneratorConfig(success -> plugin.getTaskScheduler().runFor(player,
+                () -> sendMessage(player, success ? "success.reloaded" : "errors.reload-failed")));
+        return true;
+    }
 
-            // Reload generator manager
-            plugin.reloadConfig();
+    private boolean handleStats(Player player, String[] args) {
+        if (checkPermission(player, "fenceoregen.admin")) {
+            return true;
+        }
 
-            // Reload player data
-            plugin.getPlayerData(); // Đảm bảo init nếu chưa có
-            plugin.loadPlayerLevels();
+        if (args.length > 1 && args[1].equalsIgnoreCase("export")) {
+            return handleStatsExport(player);
+        }
 
-            sendMessage(player, "success.reloaded");
-        } catch (Exception e) {
-            sendMessage(player, "errors.reload-failed");
-            plugin.getLogger().log(Level.SEVERE, "Lỗi khi reload plugin", e);
+        GeneratorMetrics metrics = plugin.getMetrics();
+        SpawnQueue spawnQueue = plugin.getGeneratorManager().getSpawnQueue();
+        sendMessage(player, "stats.header");
+        sendMessage(player, "stats.flows",
+                "%seen%", String.valueOf(metrics.getFlowsSeen()),
+                "%accepted%", String.valueOf(metrics.getFlowsAccepted()),
+                "%rejected%", String.valueOf(metrics.getFlowsRejected()),
+                "%average%", String.format(Locale.ROOT, "%.2f", metrics.getAverageFlowMicros()));
+        sendMessage(player, "stats.spawns",
+                "%executed%", String.valueOf(metrics.getSpawnsExecuted()),
+                "%queued%", String.valueOf(metrics.getSpawnsQueued()),
+                "%coalesced%", String.valueOf(metrics.getSpawnsCoalesced()),
+                "%skipped%", String.valueOf(metrics.getSpawnsSkipped()),
+                "%backlog%", String.valueOf(spawnQueue.getBacklog()),
+                "%parked%", String.valueOf(spawnQueue.getParkedCount()),
+                "%dropped%", String.valueOf(metrics.getSpawnsDropped()));
+        sendMessage(player, "stats.generators",
+                "%records%", String.valueOf(plugin.getGeneratorStore().getRecordCount()),
+                "%sites%", String.valueOf(plugin.getGeneratorRegistry().getSiteCount()));
+        sendMessage(player, "stats.queue-tick",
+                "%average%", String.format(Locale.ROOT, "%.3f", metrics.getSpawnTickDuration().getAverageMillis()),
+                "%count%", String.valueOf(metrics.getSpawnTickDuration().getCount()));
+        sendMessage(player, "stats.saves",
+                "%average%", String.format(Locale.ROOT, "%.2f", metrics.getSaveDuration().getAverageMillis()),
+                "%count%", String.valueOf(metrics.getSaveDuration().getCount()),
+                "%failures%", String.valueOf(metrics.getSaveFailures()),
+                "%pending%", String.valueOf(plugin.getLevelPersistence().getPendingCount()));
+
+        // Phân bố block cho thế giới và cấp hiện tại của người chơi
+        WorldProfile profile = plugin.getGeneratorManager().getProfile(player.getWorld());
+        int level = plugin.getPlayerLevel(plugin.getIslandLevels().getHolder(player));
+        BlockSampler sampler = profile.getSampler(level);
+        if (sampler != null) {
+            long total = 0;
+            for (int i = 0; i < sampler.size(); i++) {
+                total += sampler.getDrawCount(i);
+            }
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < sampler.size(); i++) {
+                if (line.length() > 0) line.append(", ");
+                double percent = total == 0 ? 0 : sampler.getDrawCount(i) * 100.0 / total;
+                line.append(sampler.getMaterial(i).name()).append(' ')
+                        .append(String.format(Locale.ROOT, "%.1f%%", percent));
+            }
+            sendMessage(player, "stats.distribution",
+                    "%table%", profile.getTableKey(),
+                    "%level%", String.valueOf(level),
+                    "%total%", String.valueOf(total),
+                    "%blocks%", line.toString());
         }
         return true;
     }
 
+    private boolean handleStatsExport(Player player) {
+        GeneratorManager generatorManager = plugin.getGeneratorManager();
+        String contents = plugin.getMetrics().toPrometheus(generatorManager,
+                generatorManager.getSpawnQueue().getBacklog(), plugin.getLevelPersistence().getPendingCount());
+        Path target = plugin.getDataFolder().toPath()
+                .resolve(plugin.getConfig().getString("metrics.export-file", "metrics.prom"));
+
+        // Ghi file trên luồng nền, báo kết quả lại trên luồng của người chơi
+        TaskScheduler scheduler = plugin.getTaskScheduler();
+        scheduler.runAsync(() -> {
+            try {
+                AtomicFiles.write(target, contents);
+                scheduler.runFor(player, () ->
+                        sendMessage(player, "success.stats-exported", "%file%", target.getFileName().toString()));
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Không thể xuất thống kê", e);
+                scheduler.runFor(player, () -> sendMessage(player, "errors.stats-export-failed"));
+            }
+        });
+        return true;
+    }
 
     private boolean handleSetLevel(Player player, String[] args) {
         if (checkPermission(player, "fenceoregen.admin")) {
@@ -103,8 +173,7 @@ public class FenceCommand implements CommandExecutor {
 
         try {
             int level = Integer.parseInt(args[1]);
-            String worldType = getWorldType(player.getWorld());
-            int maxLevel = plugin.getGeneratorManager().getMaxLevel(worldType);
+            int maxLevel = plugin.getGeneratorManager().getMaxLevel(player.getWorld());
 
             if (level < 1 || level > maxLevel) {
                 sendMessage(player, "errors.invalid-level",
@@ -113,8 +182,7 @@ public class FenceCommand implements CommandExecutor {
                 return true;
             }
 
-            plugin.setPlayerLevel(player.getUniqueId(), level);
-            plugin.savePlayerLevels();
+            plugin.setPlayerLevel(plugin.getIslandLevels().getHolder(player), level);
             sendMessage(player, "success.level-set", "%level%", String.valueOf(level));
             return true;
         } catch (NumberFormatException e) {
@@ -128,17 +196,23 @@ public class FenceCommand implements CommandExecutor {
             return true;
         }
 
-        UUID uuid = player.getUniqueId();
-        int currentLevel = plugin.getPlayerLevel(uuid);
-        String worldType = getWorldType(player.getWorld());
-        int maxLevel = plugin.getGeneratorManager().getMaxLevel(worldType);
+        // Ở chế độ đảo, cả đảo dùng chung một cấp độ
+        UUID holder = plugin.getIslandLevels().getHolder(player);
+        // Level của đảo đang được tải trên luồng nền, không nâng cấp dựa trên giá trị mặc định
+        if (!plugin.getLevelCache().isLoaded(holder)) {
+            sendMessage(player, "errors.level-loading");
+            return true;
+        }
+        int currentLevel = plugin.getPlayerLevel(holder);
+        WorldProfile profile = plugin.getGeneratorManager().getProfile(player.getWorld());
+        int maxLevel = profile.getMaxLevel();
 
         if (currentLevel >= maxLevel) {
             sendMessage(player, "errors.max-level", "%max%", String.valueOf(maxLevel));
             return true;
         }
 
-        double cost = getUpgradeCost(currentLevel + 1);
+        double cost = profile.getUpgradeCost(currentLevel + 1);
 
         Economy econ = plugin.getEconomy();
         if (econ == null) {
@@ -146,26 +220,32 @@ public class FenceCommand implements CommandExecutor {
             return true;
         }
 
-        if (!econ.has(player, cost)) {
-            sendMessage(player, "errors.not-enough-money", "%cost%", String.format("%.2f", cost));
-            return true;
+        // Kiểm tra số dư và trừ tiền chạy trên luồng kinh tế, kết quả báo lại trên luồng của người chơi
+        boolean started = plugin.getUpgradeService().upgrade(player, holder, currentLevel, cost, result ->
+                plugin.getTaskScheduler().runFor(player, () -> sendUpgradeResult(player, result, currentLevel + 1, cost)));
+        if (!started) {
+            sendMessage(player, "errors.upgrade-pending");
         }
-
-        econ.withdrawPlayer(player, cost);  // Trừ tiền
-        plugin.setPlayerLevel(uuid, currentLevel + 1);
-        plugin.savePlayerLevels();
-
-        sendMessage(player, "success.upgraded",
-                "%level%", String.valueOf(currentLevel + 1),
-                "%cost%", String.format("%.2f", cost));
         return true;
     }
 
+    private void sendUpgradeResult(Player player, UpgradeService.Result result, int newLevel, double cost) {
+        String formattedCost = String.format("%.2f", cost);
+        switch (result) {
+            case UPGRADED -> sendMessage(player, "success.upgraded",
+                    "%level%", String.valueOf(newLevel),
+                    "%cost%", formattedCost);
+            case NOT_ENOUGH_MONEY -> sendMessage(player, "errors.not-enough-money", "%cost%", formattedCost);
+            case CONFLICT -> sendMessage(player, "errors.upgrade-conflict", "%cost%", formattedCost);
+            case TRANSACTION_FAILED -> sendMessage(player, "errors.upgrade-failed");
+        }
+    }
+
     private boolean handleCheckLevel(Player player, String[] args) {
         Player target = args.length > 1 ? getTargetPlayer(player, args[1]) : player;
         if (target == null) return true;
 
-        int level = plugin.getPlayerLevel(target.getUniqueId());
+        int level = plugin.getPlayerLevel(plugin.getIslandLevels().getHolder(target));
         sendMessage(player, "commands.level-info", "%level%", String.valueOf(level));
         return true;
     }
@@ -182,15 +262,6 @@ public class FenceCommand implements CommandExecutor {
         return target;
     }
 
-    private String getWorldType(World world) {
-        if (world == null) return "overworld";
-        return switch (world.getEnvironment()) {
-            case NETHER -> "nether";
-            case THE_END -> "the_end";
-            default -> "overworld";
-        };
-    }
-
     private void sendHelpMenu(Player player) {
         player.sendMessage(ChatColor.GOLD + "=== " + ChatColor.YELLOW + "Trợ giúp FenceOreGen" + ChatColor.GOLD + " ===");
 
@@ -206,6 +277,7 @@ public class FenceCommand implements CommandExecutor {
         if (player.hasPermission("fenceoregen.admin")) {
             sendMessage(player, "commands.setlevel");
             sendMessage(player, "commands.reload");
+            sendMessage(player, "commands.stats");
         }
     }
 
@@ -223,10 +295,6 @@ public class FenceCommand implements CommandExecutor {
         sender.sendMessage(message);
     }
 
-    public int getUpgradeCost(int level) {
-        return upgradeCosts.getOrDefault(level, 0);
-    }
-
     private void handleCommandError(Player player, Exception e) {
         sendMessage(player, "errors.command-error");
         if (plugin.isDebugMode()) {
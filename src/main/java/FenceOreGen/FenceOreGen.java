@@ -4,9 +4,10 @@ import lombok.Getter;
 import net.milkbowl.vault.economy.Economy;
 import org.bukkit.plugin.RegisteredServiceProvider;
 import org.bukkit.Material;
-import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
@@ -14,6 +15,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 @SuppressWarnings("CallToPrintStackTrace")
@@ -21,13 +23,20 @@ import java.util.logging.Level;
 public final class FenceOreGen extends JavaPlugin {
 
     private GeneratorManager generatorManager;
+    private GeneratorRegistry generatorRegistry;
+    private GeneratorStore generatorStore;
+    private PlacedBlockStore placedBlocks;
+    private UpgradeService upgradeService;
+    private IslandLevels islandLevels;
+    private final PlayerGrid playerGrid = new PlayerGrid();
+    private final GeneratorMetrics metrics = new GeneratorMetrics();
+    private final TaskScheduler taskScheduler = new TaskScheduler(this);
     private MessageManager messageManager;
-    private FileConfiguration playerData;
     private File playerDataFile;
+    private LevelPersistence levelPersistence;
+    private PlayerLevelCache levelCache;
     private FileConfiguration config;
-    private final Map<UUID, Integer> playerLevels = new HashMap<>();
     private final Map<String, String> messages = new HashMap<>();
-    private final Map<Integer, Map<Material, Integer>> generatorLevels = new HashMap<>();
     private boolean enablePlugin;
     private boolean debugMode;
     private double upgradeCost;
@@ -41,9 +50,10 @@ public final class FenceOreGen extends JavaPlugin {
     private boolean preventBreak;
     private int breakCooldown;
     private boolean enableWorldguard;
-    private final Set<String> disabledWorlds = new HashSet<>();
-    private final Set<Material> triggerBlocks = new HashSet<>();
-    private final Set<Material> replaceableBlocks = new HashSet<>();
+    // Tập bất biến, thay cả tập khi reload để luồng region không bao giờ đọc tập đang nạp dở
+    private volatile Set<String> disabledWorlds = Set.of();
+    private volatile Set<Material> triggerBlocks = Set.of();
+    private volatile Set<Material> replaceableBlocks = Set.of();
     private Economy economy;
 
 
@@ -51,7 +61,8 @@ public final class FenceOreGen extends JavaPlugin {
     @Override
     public void onEnable() {
         saveDefaultConfig();
-        initPlayerData();
+        this.playerDataFile = new File(getDataFolder(), "playerdata.yml");
+        migrateLegacyPlayerFile();
 
         if (!setupEconomy()) {
             getLogger().severe("Vault không tìm thấy! Tắt plugin.");
@@ -61,25 +72,48 @@ public final class FenceOreGen extends JavaPlugin {
 
         messageManager = new MessageManager(this);
         loadConfiguration(); // Load basic config
+        levelPersistence = new LevelPersistence(this, createLevelStorage());
+        levelCache = new PlayerLevelCache(this, levelPersistence,
+                config.getLong("storage.cache.grace-period", 300),
+                config.getInt("storage.cache.max-offline", 1000));
 
         generatorManager = new GeneratorManager(this, config); // Initialize generatorManager
-        loadGeneratorLevels(); // Now load generator levels
+        generatorRegistry = new GeneratorRegistry(taskScheduler);
+        generatorStore = new GeneratorStore(this);
+        placedBlocks = new PlacedBlockStore(this);
+        upgradeService = new UpgradeService(this);
+        // Chế độ level theo đảo chỉ được đọc khi khởi động
+        islandLevels = new IslandLevels(this, config.getBoolean("skyblock.island-levels", false));
 
         migrateOldData();
         loadPlayerLevels();
+        levelPersistence.start(config.getLong("storage.flush-interval", 30));
+        taskScheduler.runGlobalTimer(levelCache::evictExpired, 20L * 30, 20L * 30);
 
         registerListeners();
         registerCommands();
-
-        getServer().getPluginManager().registerEvents(new BlockListener(this), this);
+        generatorStore.loadLoadedChunks();
+        placedBlocks.loadLoadedChunks();
+        getServer().getOnlinePlayers().forEach(player -> playerGrid.update(player, player.getLocation()));
 
         getLogger().info("FenceOreGen đã được kích hoạt thành công!");
     }
 
     @Override
     public void onDisable() {
-        savePlayerData();
-        savePlayerLevels();
+        // Ghi bản ghi máy tạo vào dữ liệu chunk trước khi thế giới được lưu lần cuối
+        if (generatorStore != null) {
+            generatorStore.saveAll();
+            placedBlocks.saveAll();
+        }
+        // Chờ các giao dịch nâng cấp đang chạy xong trước khi ghi level
+        if (upgradeService != null) {
+            upgradeService.shutdown();
+        }
+        // Ghi nốt các thay đổi còn chờ, chặn cho tới khi xong
+        if (levelPersistence != null) {
+            levelPersistence.shutdown();
+        }
         getLogger().info("FenceOreGen đã tắt");
     }
 
@@ -90,8 +124,10 @@ public final class FenceOreGen extends JavaPlugin {
     }
 
 
-    private void initPlayerData() {
-        this.playerDataFile = new File(getDataFolder(), "playerdata.yml");
+    /**
+     * Mở playerdata.yml (tạo file nếu chưa có). Cả file được đọc vào bộ nhớ, nên chỉ gọi khi thật sự dùng YAML.
+     */
+    private YamlLevelStorage openYamlStorage() {
         if (!playerDataFile.exists()) {
             try {
                 if (playerDataFile.createNewFile()) {
@@ -101,7 +137,41 @@ public final class FenceOreGen extends JavaPlugin {
                 getLogger().log(Level.SEVERE, "Không thể tạo file playerdata.yml", e);
             }
         }
-        this.playerData = YamlConfiguration.loadConfiguration(playerDataFile);
+        return new YamlLevelStorage(playerDataFile, YamlConfiguration.loadConfiguration(playerDataFile), getLogger());
+    }
+
+    private LevelStorage createLevelStorage() {
+        // SQLite là mặc định; playerdata.yml ghi lại cả file mỗi lần lưu nên chỉ hợp với server nhỏ
+        String type = config.getString("storage.type", "sqlite");
+        if (!"sqlite".equalsIgnoreCase(type)) {
+            return openYamlStorage();
+        }
+
+        try {
+            File databaseFile = new File(getDataFolder(), config.getString("storage.sqlite-file", "playerdata.db"));
+            LevelStorage sqliteStorage = new SqliteLevelStorage(databaseFile);
+            // Lần đầu chuyển sang SQLite: chép level cũ từ playerdata.yml, sau đó không đọc file này nữa
+            if (sqliteStorage.isEmpty() && playerDataFile.exists()) {
+                migrateToSqlite(sqliteStorage);
+            }
+            return sqliteStorage;
+        } catch (IOException e) {
+            getLogger().log(Level.SEVERE, "Không thể dùng SQLite, quay lại playerdata.yml", e);
+            return openYamlStorage();
+        }
+    }
+
+    private void migrateToSqlite(LevelStorage sqliteStorage) throws IOException {
+        LevelStorage yamlStorage = openYamlStorage();
+        if (!yamlStorage.isEmpty()) {
+            sqliteStorage.saveAll(yamlStorage.loadAll());
+            getLogger().info("Đã chuyển dữ liệu level từ playerdata.yml sang SQLite");
+        }
+        // Đổi tên để lần khởi động sau không phải đọc lại cả file
+        File migrated = new File(getDataFolder(), "playerdata.yml.migrated");
+        if (!playerDataFile.renameTo(migrated)) {
+            getLogger().warning("Không thể đổi tên playerdata.yml thành " + migrated.getName());
+        }
     }
 
     private void loadConfiguration() {
@@ -149,13 +219,9 @@ public final class FenceOreGen extends JavaPlugin {
             this.breakCooldown = Math.max(0, config.getInt("protection.break-cooldown", 300));
             this.enableWorldguard = config.getBoolean("protection.enable-worldguard", false);
 
-            disabledWorlds.clear();
-            triggerBlocks.clear();
-            replaceableBlocks.clear();
-
-            loadStringList(disabledWorlds);
-            loadMaterialList("settings.trigger-blocks", triggerBlocks);
-            loadMaterialList("settings.replaceable-blocks", replaceableBlocks);
+            this.disabledWorlds = Set.copyOf(config.getStringList("protection.disabled-worlds"));
+            this.triggerBlocks = loadMaterialList("settings.trigger-blocks");
+            this.replaceableBlocks = loadMaterialList("settings.replaceable-blocks");
 
         } catch (Exception e) {
             getLogger().severe("[FenceGen] Error reading config values: " + e.getMessage());
@@ -163,72 +229,35 @@ public final class FenceOreGen extends JavaPlugin {
         }
     }
 
-    // Add this new method
-    private void loadGeneratorLevels() {
-        if (config.isConfigurationSection("generator-levels")) {
-            ConfigurationSection worldsSection = config.getConfigurationSection("generator-levels");
-
-            assert worldsSection != null;
-            for (String world : worldsSection.getKeys(false)) {
-                ConfigurationSection levelSection = worldsSection.getConfigurationSection(world);
-                if (levelSection == null) continue;
-
-                for (String levelKey : levelSection.getKeys(false)) {
-                    int level;
-                    try {
-                        level = Integer.parseInt(levelKey);
-                    } catch (NumberFormatException e) {
-                        getLogger().warning("Invalid level number: " + levelKey);
-                        continue;
-                    }
-
-                    ConfigurationSection materialSection = levelSection.getConfigurationSection(levelKey);
-                    if (materialSection == null) continue;
-
-                    Map<Material, Integer> materials = new HashMap<>();
-                    for (String mat : materialSection.getKeys(false)) {
-                        try {
-                            Material material = Material.valueOf(mat.toUpperCase());
-                            materials.put(material, materialSection.getInt(mat));
-                            if (debugMode) {
-                                getLogger().info("[DEBUG] Reading materials for " + world + " level " + level + ": " + materials.keySet());
-                            }
-                        } catch (IllegalArgumentException e) {
-                            getLogger().warning("Invalid material: " + mat);
-                        }
-                    }
+    /**
+     * Gộp players.yml cũ vào playerdata.yml. Chạy trước khi mở kho dữ liệu để bước chuyển sang SQLite thấy dữ liệu này.
+     */
+    private void migrateLegacyPlayerFile() {
+        File oldPlayerFile = new File(getDataFolder(), "players.yml");
+        if (!oldPlayerFile.exists()) return;
 
-                    generatorManager.addGeneratorLevel(world, level, materials);
+        try {
+            FileConfiguration oldData = YamlConfiguration.loadConfiguration(oldPlayerFile);
+            FileConfiguration playerData = YamlConfiguration.loadConfiguration(playerDataFile);
+            for (String key : oldData.getKeys(false)) {
+                if (!playerData.contains(key)) {
+                    playerData.set(key, oldData.get(key));
                 }
             }
+            playerData.save(playerDataFile);
+
+            File backupFile = new File(getDataFolder(), "players_backup.yml");
+            if (oldPlayerFile.renameTo(backupFile)) {
+                getLogger().info("Đã sao lưu file players.yml cũ");
+            }
+        } catch (Exception e) {
+            getLogger().log(Level.WARNING, "Không thể migrate dữ liệu từ players.yml cũ", e);
         }
     }
 
-
             private void migrateOldData() {
-        File oldPlayerFile = new File(getDataFolder(), "players.yml");
         File oldLevelFile = new File(getDataFolder(), "levels.yml");
 
-        // Migrate từ players.yml cũ
-        if (oldPlayerFile.exists()) {
-            try {
-                FileConfiguration oldData = YamlConfiguration.loadConfiguration(oldPlayerFile);
-                for (String key : oldData.getKeys(false)) {
-                    if (!playerData.contains(key)) {
-                        playerData.set(key, oldData.get(key));
-                    }
-                }
-                savePlayerData();
-
-                File backupFile = new File(getDataFolder(), "players_backup.yml");
-                if (oldPlayerFile.renameTo(backupFile)) {
-                    getLogger().info("Đã sao lưu file players.yml cũ");
-                }
-            } catch (Exception e) {
-                getLogger().log(Level.WARNING, "Không thể migrate dữ liệu từ players.yml cũ", e);
-            }
-        }
-
         // Migrate từ levels.yml cũ
         if (oldLevelFile.exists()) {
             try {
@@ -237,13 +266,11 @@ public final class FenceOreGen extends JavaPlugin {
                     try {
                         UUID uuid = UUID.fromString(uuidStr);
                         int level = oldLevels.getInt(uuidStr);
-                        playerLevels.put(uuid, level);
-                        playerData.set("levels." + uuidStr, level);
+                        setPlayerLevel(uuid, level); // Ghi xuống kho dữ liệu ở lần flush tiếp theo
                     } catch (IllegalArgumentException e) {
                         getLogger().warning("UUID không hợp lệ trong levels.yml: " + uuidStr);
                     }
                 }
-                savePlayerData();
 
                 File backupFile = new File(getDataFolder(), "levels_backup.yml");
                 if (oldLevelFile.renameTo(backupFile)) {
@@ -257,20 +284,50 @@ public final class FenceOreGen extends JavaPlugin {
 
 
 
+    /**
+     * Yêu cầu ghi các thay đổi level đang chờ xuống kho dữ liệu trên luồng nền.
+     */
     public void savePlayerData() {
-        try {
-            // Lưu cả player levels vào playerdata.yml
-            for (Map.Entry<UUID, Integer> entry : playerLevels.entrySet()) {
-                playerData.set("levels." + entry.getKey().toString(), entry.getValue());
-            }
+        levelPersistence.flushAsync();
+    }
 
-            playerData.save(playerDataFile);
-            if (debugMode) {
-                getLogger().info("Đã lưu dữ liệu người chơi");
+    /**
+     * Đọc lại config.yml trên luồng nền và áp dụng cho bộ tạo quặng trong một lần hoán đổi (dùng cho /fencegen reload).
+     * Nếu file lỗi thì giữ nguyên cấu hình cũ. {@code callback} nhận kết quả trên luồng toàn cục.
+     */
+    public void reloadGeneratorConfig(Consumer<Boolean> callback) {
+        File configFile = new File(getDataFolder(), "config.yml");
+        taskScheduler.runAsync(() -> {
+            YamlConfiguration loaded = new YamlConfiguration();
+            GeneratorSnapshot snapshot;
+            try {
+                loaded.load(configFile);
+                snapshot = GeneratorSnapshot.parse(loaded, getLogger());
+            } catch (IOException | InvalidConfigurationException | RuntimeException e) {
+                getLogger().log(Level.SEVERE, "Không thể đọc config.yml, giữ cấu hình cũ", e);
+                taskScheduler.runGlobal(() -> callback.accept(false));
+                return;
             }
-        } catch (IOException e) {
-            getLogger().log(Level.SEVERE, "Không thể lưu playerdata.yml", e);
-        }
+            if (snapshot.getWorldSamplers().isEmpty()) {
+                getLogger().severe("config.yml không có bảng generator-levels hợp lệ, giữ cấu hình cũ");
+                taskScheduler.runGlobal(() -> callback.accept(false));
+                return;
+            }
+
+            // Chỉ phần hoán đổi chạy trên luồng chính
+            taskScheduler.runGlobal(() -> {
+                boolean triggersChanged = !snapshot.getTriggerBlocks()
+                        .equals(generatorManager.getSnapshot().getTriggerBlocks());
+                this.config = loaded;
+                readConfigValues();
+                generatorManager.apply(snapshot);
+                if (triggersChanged) {
+                    // Tập block kích hoạt đã đổi, bỏ chỉ mục để các chunk được quét lại khi có nước chảy
+                    generatorRegistry.reindex();
+                }
+                callback.accept(true);
+            });
+        });
     }
 
     private boolean setupEconomy() {
@@ -287,35 +344,30 @@ public final class FenceOreGen extends JavaPlugin {
         savePlayerData(); // Sử dụng chung phương thức save
     }
 
-    private void loadMaterialList(String path, Set<Material> target) {
+    private Set<Material> loadMaterialList(String path) {
+        Set<Material> materials = EnumSet.noneOf(Material.class);
         for (String name : config.getStringList(path)) {
             try {
-                target.add(Material.valueOf(name.toUpperCase()));
+                materials.add(Material.valueOf(name.toUpperCase()));
             } catch (IllegalArgumentException e) {
                 getLogger().warning("Invalid material in " + path + ": " + name);
             }
         }
+        return Collections.unmodifiableSet(materials);
     }
 
 
+    /**
+     * Nạp level của những người chơi đang online (ví dụ sau khi reload plugin).
+     */
     public void loadPlayerLevels() {
-        if (playerData.contains("levels")) {
-            ConfigurationSection levelsSection = playerData.getConfigurationSection("levels");
-            assert levelsSection != null;
-            for (String uuidStr : levelsSection.getKeys(false)) {
-                try {
-                    UUID uuid = UUID.fromString(uuidStr);
-                    int level = levelsSection.getInt(uuidStr);
-                    playerLevels.put(uuid, level);
-                } catch (IllegalArgumentException e) {
-                    getLogger().warning("UUID không hợp lệ trong playerdata: " + uuidStr);
-                }
-            }
+        for (Player player : getServer().getOnlinePlayers()) {
+            loadPlayerLevel(player.getUniqueId());
         }
     }
 
-    private void loadStringList(Set<String> target) {
-        target.addAll(config.getStringList("protection.disabled-worlds"));
+    public void loadPlayerLevel(UUID uuid) {
+        levelCache.loadNow(uuid);
     }
 
     private void registerListeners() {
@@ -323,14 +375,16 @@ public final class FenceOreGen extends JavaPlugin {
         getServer().getPluginManager().registerEvents(new BlockListener(this), this);
         getServer().getPluginManager().registerEvents(new PlayerJoinListener(this), this);
         getServer().getPluginManager().registerEvents(new WaterInteractionListener(this), this);
+        getServer().getPluginManager().registerEvents(new ChunkListener(this), this);
+        getServer().getPluginManager().registerEvents(new PlayerGridListener(this), this);
     }
 
     public int getPlayerLevel(UUID uuid) {
-        return playerLevels.getOrDefault(uuid, 1);
+        return levelCache.get(uuid);
     }
 
     public void setPlayerLevel(UUID uuid, int level) {
-        playerLevels.put(uuid, level);
+        levelCache.set(uuid, level);
     }
 
     public boolean isWorldDisabled(String worldName) {
@@ -1,10 +1,9 @@
 package FenceOreGen;
 
-import org.bukkit.Material;
-import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockPlaceEvent;
 
@@ -23,12 +22,13 @@ public class FencePlaceListener implements Listener {
     @EventHandler
     public void onFencePlaced(BlockPlaceEvent event) {
         Block placed = event.getBlockPlaced();
-        if (!FenceUtils.isFence(placed.getType()) || plugin.isWorldDisabled(placed.getWorld().getName())) {
+        if (!FenceUtils.isTrigger(placed.getType()) || plugin.isWorldDisabled(placed.getWorld().getName())) {
             return;
         }
 
-        UUID uuid = event.getPlayer().getUniqueId();
-        int level = plugin.getPlayerLevel(uuid);
+        // Ở chế độ đảo, level thuộc về đảo chứa hàng rào
+        UUID holder = plugin.getIslandLevels().getHolder(placed, event.getPlayer().getUniqueId());
+        int level = plugin.getPlayerLevel(holder);
 
         for (BlockFace face : HORIZONTAL_FACES) {
             Block adjacent = placed.getRelative(face);
@@ -40,24 +40,22 @@ public class FencePlaceListener implements Listener {
         }
     }
 
-    private String getWorldType(World world) {
-        if (world == null) return "overworld";
-        return switch (world.getEnvironment()) {
-            case NETHER -> "nether";
-            case THE_END -> "the_end";
-            default -> "overworld";
-        };
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTriggerPlaced(BlockPlaceEvent event) {
+        Block placed = event.getBlockPlaced();
+        if (FenceUtils.isTrigger(placed.getType())) {
+            plugin.getGeneratorRegistry().addTrigger(placed);
+            // Thế giới bị tắt không bao giờ sinh block, không cần lưu bản ghi máy tạo
+            if (plugin.isWorldDisabled(placed.getWorld().getName())) return;
+            UUID owner = plugin.getIslandLevels().getHolder(placed, event.getPlayer().getUniqueId());
+            plugin.getGeneratorStore().create(placed, owner, plugin.getLevelCache().getOrLoad(owner, 1));
+        }
     }
 
     private void trySpawnOre(Block block, int level) {
         if (FenceUtils.isAirOrWater(block)) {
-            // Thêm worldType khi gọi getRandomBlock()
-            String worldType = getWorldType(block.getWorld());
-            Material newOre = plugin.getGeneratorManager().getRandomBlock(worldType, level);
-            if (newOre != null) {
-                block.setType(newOre);
-                // Play effects...
-            }
+            // Đi qua cùng đường spawn với dòng nước để thống kê và phân bố block được ghi nhận
+            plugin.getGeneratorManager().spawnBlockAt(block.getWorld(), block.getX(), block.getY(), block.getZ(), level);
         }
     }
 }
\ No newline at end of file
@@ -4,36 +4,23 @@ import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 
-import java.util.HashMap;
-import java.util.Map;
-
 public class FenceUtils {
     private static final BlockFace[] HORIZONTAL_FACES = {
             BlockFace.NORTH, BlockFace.SOUTH, BlockFace.EAST, BlockFace.WEST
     };
 
-    private static final Map<Material, Boolean> fenceCache = new HashMap<>();
-    private static final Map<Material, Boolean> waterCache = new HashMap<>();
-
-    static {
-        // Khởi tạo cache cho các loại hàng rào
-        for (Material material : Material.values()) {
-            String name = material.name();
-            if (name.endsWith("_FENCE") || name.endsWith("_FENCE_GATE")) {
-                fenceCache.put(material, true);
-            }
-        }
-
-        // Khởi tạo cache cho nước
-        waterCache.put(Material.WATER, true);
+    // Phân loại dùng chung bảng MaterialFlags (một lần đọc mảng, không xử lý chuỗi)
+    public static boolean isFence(Material material) {
+        return MaterialFlags.isFence(material);
     }
 
-    public static boolean isFence(Material material) {
-        return material != null && fenceCache.getOrDefault(material, false);
+    // Block kích hoạt theo settings.trigger-blocks (mặc định là các loại hàng rào)
+    public static boolean isTrigger(Material material) {
+        return MaterialFlags.isTrigger(material);
     }
 
     public static boolean isWater(Material material) {
-        return material != null && waterCache.getOrDefault(material, false);
+        return MaterialFlags.isWater(material);
     }
 
     public static boolean isBetweenFenceAndWater(Block center) {
@@ -43,8 +30,8 @@ public class FenceUtils {
             Block b1 = center.getRelative(face);
             Block b2 = center.getRelative(face.getOppositeFace());
 
-            if ((isFence(b1.getType()) && isWater(b2.getType())) ||
-                    (isWater(b1.getType()) && isFence(b2.getType()))) {
+            if ((isTrigger(b1.getType()) && isWater(b2.getType())) ||
+                    (isWater(b1.getType()) && isTrigger(b2.getType()))) {
                 return true;
             }
         }
@@ -2,185 +2,146 @@ package FenceOreGen;
 
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
-import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.block.data.BlockData;
 import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.util.*;
 
 public class GeneratorManager {
     private final FenceOreGen plugin;
-    private final Map<String, Map<Integer, Map<Material, Integer>>> generatorLevels = new HashMap<>();
-    private final Map<String, Map<Integer, Map<Material, Double>>> worldLevelBlockChances = new HashMap<>();
-    private final EnumSet<Material> replaceableBlocks = EnumSet.noneOf(Material.class);
-    private final Random random = new Random();
-    private final FileConfiguration config;
-    private long spawnDelay = 0L;
+    // Compiled configuration; replaced as a whole on reload, never modified in place
+    private volatile GeneratorSnapshot snapshot;
+    private final SpawnQueue spawnQueue;
 
 
     public GeneratorManager(FenceOreGen plugin, FileConfiguration config) {
         this.plugin = plugin;
-        this.config = config;
-        reload();
+        this.spawnQueue = new SpawnQueue(plugin, this);
+        reload(config);
+        spawnQueue.start();
     }
 
-    public void reload() {
-        worldLevelBlockChances.clear();
-        replaceableBlocks.clear();
-        loadConfig();
-        this.spawnDelay = config.getInt("spawn-delay", 0);
-        plugin.getLogger().info("[DEBUG] spawn-delay loaded: " + spawnDelay);
-    }
-
-    private void loadConfig() {
+    /**
+     * Compiles and applies a config on the calling thread (used on enable).
+     */
+    public void reload(FileConfiguration config) {
         if (config == null) {
             plugin.getLogger().severe("[FenceGen] Config is null! Cannot load configuration.");
-            return;
-        }
-        worldLevelBlockChances.clear();
-        replaceableBlocks.clear();
-
-        // Load replaceable blocks
-        List<String> replaceableList = config.getStringList("settings.replaceable-blocks");
-        for (String materialName : replaceableList) {
-            Material material = Material.matchMaterial(materialName.trim().toUpperCase());
-            if (material != null) {
-                replaceableBlocks.add(material);
-            } else {
-                plugin.getLogger().warning("[FenceGen] Invalid replaceable material: " + materialName);
-            }
+            config = new YamlConfiguration();
         }
+        apply(GeneratorSnapshot.parse(config, plugin.getLogger()));
+    }
 
-        // Load generator levels
-        ConfigurationSection generatorLevelsSection = config.getConfigurationSection("generator-levels");
-        if (generatorLevelsSection == null) {
-            plugin.getLogger().severe("[FenceGen] 'generator-levels' section is missing in config!");
-            return;
+    /**
+     * Publishes a snapshot compiled by {@link GeneratorSnapshot#parse}. Spawns already running keep the
+     * snapshot they read; every later spawn sees the new one. Must run on the global (main) thread since
+     * it also resizes the spawn queue.
+     */
+    public void apply(GeneratorSnapshot next) {
+        snapshot = next;
+        MaterialFlags.install(next.getFlags());
+        spawnQueue.configure(
+                next.getMaxPerTick(),
+                next.getMaxPerChunkPerTick(),
+                next.getBacklogWarning(),
+                next.getSpawnDelay(),
+                next.isParkUnloaded(),
+                next.getMaxParked());
+        for (World world : plugin.getServer().getWorlds()) {
+            next.loadWorld(world);
         }
+    }
 
-        for (String worldType : generatorLevelsSection.getKeys(false)) {
-            ConfigurationSection worldSection = generatorLevelsSection.getConfigurationSection(worldType);
-            if (worldSection == null) {
-                plugin.getLogger().warning("[FenceGen] Skipping invalid world section: " + worldType);
-                continue;
-            }
-
-            Map<Integer, Map<Material, Double>> levelMap = new HashMap<>();
-
-            for (String levelKey : worldSection.getKeys(false)) {
-                if (!levelKey.matches("\\d+")) {
-                    plugin.getLogger().warning("[FenceGen] Skipping non-numeric level key '" + levelKey + "' in world " + worldType);
-                    continue;
-                }
-
-                int level = Integer.parseInt(levelKey);
-                ConfigurationSection levelSection = worldSection.getConfigurationSection(levelKey);
-                if (levelSection == null) {
-                    plugin.getLogger().warning("[FenceGen] Missing configuration for level " + level + " in world " + worldType);
-                    continue;
-                }
-
-                plugin.getLogger().info("[DEBUG] Reading materials for " + worldType + " level " + level + ": " + levelSection.getKeys(false));
-
-                Map<Material, Double> materials = new HashMap<>();
-                for (Map.Entry<String, Object> entry : levelSection.getValues(false).entrySet()) {
-                    String materialKey = entry.getKey();
-                    Material material = Material.matchMaterial(materialKey.trim().toUpperCase());
-                    if (material == null) {
-                        plugin.getLogger().warning("[FenceGen] Invalid material '" + materialKey + "' in " + worldType + " level " + level);
-                        continue;
-                    }
-
-                    try {
-                        double chance = Double.parseDouble(entry.getValue().toString());
-                        materials.put(material, chance);
-                    } catch (NumberFormatException e) {
-                        plugin.getLogger().warning("[FenceGen] Invalid chance value for '" + materialKey + "': " + entry.getValue());
-                    }
-                }
-
-                if (!materials.isEmpty()) {
-                    levelMap.put(level, materials);
-                } else {
-                    plugin.getLogger().warning("[FenceGen] No valid materials found in level " + level + " of world " + worldType);
-                }
-            }
-
-            if (!levelMap.isEmpty()) {
-                worldLevelBlockChances.put(worldType.toLowerCase(), levelMap);
-            } else {
-                plugin.getLogger().warning("[FenceGen] No valid levels found for world " + worldType);
-            }
-        }
+    public GeneratorSnapshot getSnapshot() {
+        return snapshot;
+    }
 
-        // Load spawn delay
-        this.spawnDelay = config.getLong("spawn-delay", 0L);
+    public int getMaxLevel(World world) {
+        return getProfile(world).getMaxLevel();
     }
 
+    /**
+     * Compiled tables by lowercase generator-levels key (environment or world name), indexed by level.
+     */
+    public Map<String, BlockSampler[]> getWorldSamplers() {
+        return snapshot.getWorldSamplers();
+    }
 
-    public void addGeneratorLevel(String worldType, int level, Map<Material, Integer> materials) {
-        worldType = worldType.toLowerCase();
-        generatorLevels
-                .computeIfAbsent(worldType, k -> new HashMap<>())
-                .put(level, materials);
+    public WorldProfile getProfile(World world) {
+        return snapshot.getProfile(world);
     }
 
-    public int getMaxLevel(String worldType) {
-        Map<Integer, Map<Material, Double>> levelMap = worldLevelBlockChances.get(worldType.toLowerCase());
-        if (levelMap == null || levelMap.isEmpty()) return 1;
-        return Collections.max(levelMap.keySet());
+    /**
+     * Resolves and caches the profile of a world, called from WorldLoadEvent.
+     */
+    public WorldProfile loadWorld(World world) {
+        return snapshot.loadWorld(world);
     }
 
-    public Material getRandomBlock(String worldType, int level) {
-        Map<Integer, Map<Material, Double>> levelMap = worldLevelBlockChances.get(worldType.toLowerCase());
-        if (levelMap == null) {
-            levelMap = worldLevelBlockChances.get("overworld"); // Fallback to overworld
-            if (levelMap == null) return Material.STONE;
-        }
+    public void unloadWorld(World world) {
+        snapshot.unloadWorld(world);
+    }
 
-        Map<Material, Double> chances = levelMap.getOrDefault(level, levelMap.get(1));
-        if (chances == null || chances.isEmpty()) return Material.STONE;
+    public Set<Material> getReplaceableBlocks() {
+        return snapshot.getReplaceableBlocks();
+    }
 
-        double total = chances.values().stream().mapToDouble(Double::doubleValue).sum();
-        double randomValue = random.nextDouble() * total;
-        double current = 0;
+    public SpawnQueue getSpawnQueue() {
+        return spawnQueue;
+    }
 
-        for (Map.Entry<Material, Double> entry : chances.entrySet()) {
-            current += entry.getValue();
-            if (randomValue <= current) {
-                return entry.getKey();
-            }
-        }
+    public void spawnBlockAtDelayed(Location location, int level) {
+        if (location == null || location.getWorld() == null) return;
 
-        return Material.STONE;
+        // Mọi spawn đi qua hàng đợi trung tâm, kể cả khi spawn-delay = 0
+        boolean added = spawnQueue.enqueue(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ(),
+                level, snapshot.getSpawnDelay());
+        plugin.getMetrics().recordQueued(added);
     }
 
+    public void spawnBlockAt(Location location, int level) {
+        if (location == null || location.getWorld() == null) return;
 
-    public Set<Material> getReplaceableBlocks() {
-        return Collections.unmodifiableSet(replaceableBlocks);
+        spawnBlockAt(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ(), level);
     }
 
-    public void spawnBlockAtDelayed(Location location, String worldType, int level) {
-        if (spawnDelay <= 0) {
-            spawnBlockAt(location, worldType, level);
+    public void spawnBlockAt(World world, int x, int y, int z, int level) {
+        GeneratorSnapshot current = snapshot;
+        Block block = world.getBlockAt(x, y, z);
+        if (!current.getFlags().is(block.getType(), MaterialFlags.REPLACEABLE)) {
+            plugin.getMetrics().recordSpawn(false);
             return;
         }
 
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                spawnBlockAt(location, worldType, level);
-            }
-        }.runTaskLater(plugin, spawnDelay);
+        BlockSampler sampler = current.getProfile(world).getSampler(level);
+        if (sampler == null) {
+            placeBlock(current, block, Material.STONE);
+        } else {
+            int index = sampler.sampleIndex(current.getRandom().next(world, BlockKeys.pack(x, y, z)));
+            sampler.recordDraw(index);
+            placeBlock(current, block, sampler.getMaterial(index));
+        }
+        plugin.getMetrics().recordSpawn(true);
     }
 
-    public void spawnBlockAt(Location location, String worldType, int level) {
-        if (location == null || location.getWorld() == null) return;
+    /**
+     * Places a generated block. In no-physics mode the cached block data is written without
+     * neighbour updates, so the new block cannot wake up the surrounding water again.
+     */
+    public void placeBlock(Block block, Material material) {
+        placeBlock(snapshot, block, material);
+    }
 
-        Block block = location.getBlock();
-        if (!replaceableBlocks.contains(block.getType())) return;
+    private static void placeBlock(GeneratorSnapshot current, Block block, Material material) {
+        if (current.isApplyPhysics()) {
+            block.setType(material);
+            return;
+        }
 
-        block.setType(getRandomBlock(worldType, level));
+        BlockData data = current.getBlockData(material);
+        block.setBlockData(data != null ? data : material.createBlockData(), false);
     }
 }
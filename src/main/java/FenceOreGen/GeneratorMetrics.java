@@ -0,0 +1,221 @@
+package FenceOreGen;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always-on counters for the generator pipeline.
+ * Every counter is a {@link LongAdder}, so recording from the main thread, async chunk scans or the storage
+ * thread is a single uncontended add. Block distribution counts live on each {@link BlockSampler}.
+ */
+public class GeneratorMetrics {
+    private static final String PREFIX = "fenceoregen_";
+    // Upper bounds in milliseconds; the last bucket is +Inf
+    private static final double[] DURATION_BOUNDS_MS = {0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 25, 50, 100, 250, 1000};
+
+    private final LongAdder flowsSeen = new LongAdder();
+    private final LongAdder flowsAccepted = new LongAdder();
+    private final LongAdder flowsRejected = new LongAdder();
+    private final LongAdder flowNanos = new LongAdder();
+    private final LongAdder spawnsQueued = new LongAdder();
+    private final LongAdder spawnsCoalesced = new LongAdder();
+    private final LongAdder spawnsExecuted = new LongAdder();
+    private final LongAdder spawnsSkipped = new LongAdder();
+    private final LongAdder spawnsParked = new LongAdder();
+    private final LongAdder spawnsDropped = new LongAdder();
+    private final LongAdder saveFailures = new LongAdder();
+    private final LongAdder savedEntries = new LongAdder();
+    private final DurationHistogram spawnTickDuration = new DurationHistogram();
+    private final DurationHistogram saveDuration = new DurationHistogram();
+
+    /**
+     * Fixed-bucket latency histogram. Buckets are stored non-cumulative and summed on export.
+     */
+    public static final class DurationHistogram {
+        private final LongAdder[] buckets = new LongAdder[DURATION_BOUNDS_MS.length + 1];
+        private final LongAdder sumNanos = new LongAdder();
+
+        DurationHistogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void record(long nanos) {
+            double millis = nanos / 1_000_000.0;
+            int i = 0;
+            while (i < DURATION_BOUNDS_MS.length && millis > DURATION_BOUNDS_MS[i]) i++;
+            buckets[i].increment();
+            sumNanos.add(nanos);
+        }
+
+        public long getCount() {
+            long count = 0;
+            for (LongAdder bucket : buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        public double getAverageMillis() {
+            long count = getCount();
+            return count == 0 ? 0 : sumNanos.sum() / 1_000_000.0 / count;
+        }
+
+        private void write(StringBuilder out, String name, String help) {
+            header(out, name, help, "histogram");
+            long cumulative = 0;
+            for (int i = 0; i < DURATION_BOUNDS_MS.length; i++) {
+                cumulative += buckets[i].sum();
+                out.append(name).append("_bucket{le=\"").append(DURATION_BOUNDS_MS[i] / 1000.0).append("\"} ")
+                        .append(cumulative).append('\n');
+            }
+            cumulative += buckets[DURATION_BOUNDS_MS.length].sum();
+            out.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+            out.append(name).append("_sum ").append(sumNanos.sum() / 1_000_000_000.0).append('\n');
+            out.append(name).append("_count ").append(cumulative).append('\n');
+        }
+    }
+
+    public void recordFlow(boolean accepted, long nanos) {
+        flowsSeen.increment();
+        (accepted ? flowsAccepted : flowsRejected).increment();
+        flowNanos.add(nanos);
+    }
+
+    public void recordQueued(boolean added) {
+        (added ? spawnsQueued : spawnsCoalesced).increment();
+    }
+
+    public void recordSpawn(boolean executed) {
+        (executed ? spawnsExecuted : spawnsSkipped).increment();
+    }
+
+    /**
+     * A due spawn whose chunk was not loaded, either parked until the chunk loads or dropped.
+     */
+    public void recordUnloaded(boolean parked) {
+        (parked ? spawnsParked : spawnsDropped).increment();
+    }
+
+    public void recordSpawnTick(long nanos) {
+        spawnTickDuration.record(nanos);
+    }
+
+    public void recordSave(long nanos, int entries) {
+        saveDuration.record(nanos);
+        savedEntries.add(entries);
+    }
+
+    public void recordSaveFailure() {
+        saveFailures.increment();
+    }
+
+    public long getFlowsSeen() {
+        return flowsSeen.sum();
+    }
+
+    public long getFlowsAccepted() {
+        return flowsAccepted.sum();
+    }
+
+    public long getFlowsRejected() {
+        return flowsRejected.sum();
+    }
+
+    public double getAverageFlowMicros() {
+        long seen = flowsSeen.sum();
+        return seen == 0 ? 0 : flowNanos.sum() / 1000.0 / seen;
+    }
+
+    public long getSpawnsQueued() {
+        return spawnsQueued.sum();
+    }
+
+    public long getSpawnsCoalesced() {
+        return spawnsCoalesced.sum();
+    }
+
+    public long getSpawnsExecuted() {
+        return spawnsExecuted.sum();
+    }
+
+    public long getSpawnsSkipped() {
+        return spawnsSkipped.sum();
+    }
+
+    public long getSpawnsParked() {
+        return spawnsParked.sum();
+    }
+
+    public long getSpawnsDropped() {
+        return spawnsDropped.sum();
+    }
+
+    public long getSaveFailures() {
+        return saveFailures.sum();
+    }
+
+    public DurationHistogram getSpawnTickDuration() {
+        return spawnTickDuration;
+    }
+
+    public DurationHistogram getSaveDuration() {
+        return saveDuration;
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format.
+     */
+    public String toPrometheus(GeneratorManager generatorManager, int backlog, int pendingSaves) {
+        StringBuilder out = new StringBuilder(4096);
+
+        header(out, PREFIX + "flow_events_total", "Water flow events handled by the generator listener.", "counter");
+        out.append(PREFIX).append("flow_events_total{result=\"accepted\"} ").append(flowsAccepted.sum()).append('\n');
+        out.append(PREFIX).append("flow_events_total{result=\"rejected\"} ").append(flowsRejected.sum()).append('\n');
+        header(out, PREFIX + "flow_handler_seconds_total", "Main thread time spent in the water flow handler.", "counter");
+        out.append(PREFIX).append("flow_handler_seconds_total ").append(flowNanos.sum() / 1_000_000_000.0).append('\n');
+
+        header(out, PREFIX + "spawns_total", "Generator spawn requests by outcome.", "counter");
+        out.append(PREFIX).append("spawns_total{result=\"queued\"} ").append(spawnsQueued.sum()).append('\n');
+        out.append(PREFIX).append("spawns_total{result=\"coalesced\"} ").append(spawnsCoalesced.sum()).append('\n');
+        out.append(PREFIX).append("spawns_total{result=\"executed\"} ").append(spawnsExecuted.sum()).append('\n');
+        out.append(PREFIX).append("spawns_total{result=\"skipped\"} ").append(spawnsSkipped.sum()).append('\n');
+        out.append(PREFIX).append("spawns_total{result=\"parked\"} ").append(spawnsParked.sum()).append('\n');
+        out.append(PREFIX).append("spawns_total{result=\"dropped\"} ").append(spawnsDropped.sum()).append('\n');
+        header(out, PREFIX + "spawn_queue_backlog", "Spawns waiting in the spawn queue.", "gauge");
+        out.append(PREFIX).append("spawn_queue_backlog ").append(backlog).append('\n');
+        spawnTickDuration.write(out, PREFIX + "spawn_tick_seconds", "Time spent draining the spawn queue per tick.");
+
+        header(out, PREFIX + "blocks_generated_total", "Blocks drawn per world type, level and material.", "counter");
+        for (Map.Entry<String, BlockSampler[]> entry : generatorManager.getWorldSamplers().entrySet()) {
+            BlockSampler[] levels = entry.getValue();
+            for (int level = 0; level < levels.length; level++) {
+                BlockSampler sampler = levels[level];
+                // Unconfigured levels share the level 1 table, count it only once
+                if (sampler == null || (level != 1 && sampler == levels[1])) continue;
+                for (int i = 0; i < sampler.size(); i++) {
+                    out.append(PREFIX).append("blocks_generated_total{world=\"").append(entry.getKey())
+                            .append("\",level=\"").append(level)
+                            .append("\",material=\"").append(sampler.getMaterial(i).name().toLowerCase(Locale.ROOT))
+                            .append("\"} ").append(sampler.getDrawCount(i)).append('\n');
+                }
+            }
+        }
+
+        saveDuration.write(out, PREFIX + "save_seconds", "Time spent writing a batch of player levels.");
+        header(out, PREFIX + "saved_entries_total", "Player level entries written to storage.", "counter");
+        out.append(PREFIX).append("saved_entries_total ").append(savedEntries.sum()).append('\n');
+        header(out, PREFIX + "save_failures_total", "Failed player level writes.", "counter");
+        out.append(PREFIX).append("save_failures_total ").append(saveFailures.sum()).append('\n');
+        header(out, PREFIX + "save_pending", "Player level changes not yet written.", "gauge");
+        out.append(PREFIX).append("save_pending ").append(pendingSaves).append('\n');
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+}
@@ -0,0 +1,45 @@
+package FenceOreGen;
+
+import java.util.UUID;
+
+/**
+ * State of one generator, keyed by the packed position of its trigger block.
+ * Tier is the owner's level as last seen: it starts at the owner's level when the trigger is placed and is set to
+ * the owner's current level on every spawn, up or down (e.g. after setlevel). While an offline owner's level is
+ * being loaded the generator keeps producing at the stored tier.
+ */
+public final class GeneratorRecord {
+    private final UUID owner;
+    private volatile int tier;
+    private volatile long lastGenerated;
+
+    public GeneratorRecord(UUID owner, int tier, long lastGenerated) {
+        this.owner = owner;
+        this.tier = Math.max(1, tier);
+        this.lastGenerated = lastGenerated;
+    }
+
+    public UUID getOwner() {
+        return owner;
+    }
+
+    public int getTier() {
+        return tier;
+    }
+
+    void setTier(int tier) {
+        this.tier = Math.max(1, tier);
+    }
+
+    /**
+     * World full time of the last spawn, or 0 if it never generated.
+     * Kept in memory; it reaches the chunk data only when the chunk is saved for another change.
+     */
+    public long getLastGenerated() {
+        return lastGenerated;
+    }
+
+    void setLastGenerated(long lastGenerated) {
+        this.lastGenerated = lastGenerated;
+    }
+}
@@ -0,0 +1,247 @@
+package FenceOreGen;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chunk-keyed index of generator sites: every air position a trigger block could turn into a generator
+ * (its four horizontal neighbours and the block above it). Triggers come from {@code settings.trigger-blocks}.
+ * Lets the water flow handler reject unrelated flows with a single primitive lookup.
+ * Each world is split into lock stripes by chunk, so region threads working on different farms rarely meet.
+ * A chunk is scanned the first time water flows in or next to it, not when it loads, so chunks nobody farms in
+ * never pay for a snapshot; the scan runs async and is merged back on the thread that owns the chunk.
+ * Triggers are learned from placement, piston moves and chunk scans. Blocks changed without an event (WorldEdit,
+ * schematic pastes) are not seen until the chunk is scanned again after a reload, so lookups near chunks that are
+ * not indexed yet fall back to checking the blocks directly.
+ */
+public class GeneratorRegistry {
+    private static final int STRIPES = 16;
+
+    private final TaskScheduler scheduler;
+    private final Map<UUID, WorldIndex> worlds = new ConcurrentHashMap<>();
+
+    private static final class WorldIndex {
+        final Stripe[] stripes = new Stripe[STRIPES];
+
+        WorldIndex() {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Stripe();
+            }
+        }
+
+        Stripe stripe(long chunkKey) {
+            long h = chunkKey * 0x9E3779B97F4A7C15L;
+            return stripes[(int) (h >>> 60)];
+        }
+    }
+
+    // Guarded by its own monitor
+    private static final class Stripe {
+        // spawn position -> number of adjacent triggers
+        final LongIntHashMap sites = new LongIntHashMap(64);
+        // chunk key -> trigger positions inside that chunk
+        final Map<Long, LongHashSet> triggersByChunk = new HashMap<>();
+        // chunks whose snapshot scan has not been merged yet
+        final LongHashSet pendingChunks = new LongHashSet();
+        // chunks whose scan has been merged and which are still loaded
+        final LongHashSet indexedChunks = new LongHashSet();
+    }
+
+    public GeneratorRegistry(TaskScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Drops the whole index, used when the trigger set changes on reload. Chunks are scanned again on their next flow.
+     */
+    public void reindex() {
+        worlds.clear();
+    }
+
+    /**
+     * Returns false only when the block is known not to touch a trigger.
+     * A trigger next to the block can sit in a neighbouring chunk, so the block reports true while its own chunk
+     * or any chunk holding one of its neighbours is not indexed yet; those chunks are queued for a scan and the
+     * caller checks the blocks directly in the meantime.
+     */
+    public boolean isCandidate(Block block) {
+        World world = block.getWorld();
+        WorldIndex index = worlds.computeIfAbsent(world.getUID(), k -> new WorldIndex());
+
+        int x = block.getX();
+        int z = block.getZ();
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+        Stripe stripe = index.stripe(BlockKeys.chunkKey(chunkX, chunkZ));
+        synchronized (stripe) {
+            if (stripe.sites.containsKey(BlockKeys.pack(x, block.getY(), z))) return true;
+        }
+        // Not short-circuited, every chunk the flow touches gets queued at once
+        boolean candidate = !ensureIndexed(world, index, chunkX, chunkZ);
+        if ((x + 1) >> 4 != chunkX) candidate |= !ensureIndexed(world, index, chunkX + 1, chunkZ);
+        if ((x - 1) >> 4 != chunkX) candidate |= !ensureIndexed(world, index, chunkX - 1, chunkZ);
+        if ((z + 1) >> 4 != chunkZ) candidate |= !ensureIndexed(world, index, chunkX, chunkZ + 1);
+        if ((z - 1) >> 4 != chunkZ) candidate |= !ensureIndexed(world, index, chunkX, chunkZ - 1);
+        return candidate;
+    }
+
+    /**
+     * Returns true if the chunk is indexed, otherwise queues its first scan and returns false.
+     */
+    private boolean ensureIndexed(World world, WorldIndex index, int chunkX, int chunkZ) {
+        long chunkKey = BlockKeys.chunkKey(chunkX, chunkZ);
+        Stripe stripe = index.stripe(chunkKey);
+        synchronized (stripe) {
+            if (stripe.indexedChunks.contains(chunkKey)) return true;
+            if (!stripe.pendingChunks.add(chunkKey)) return false;
+        }
+        // Snapshots must be taken on the thread that owns the chunk, which may be another region
+        scheduler.runAt(world, chunkX, chunkZ, () -> {
+            if (world.isChunkLoaded(chunkX, chunkZ)) {
+                scanChunk(world.getChunkAt(chunkX, chunkZ), index, stripe, chunkKey);
+            } else {
+                synchronized (stripe) {
+                    stripe.pendingChunks.remove(chunkKey);
+                }
+            }
+        });
+        return false;
+    }
+
+    public void addTrigger(Block block) {
+        WorldIndex index = worlds.computeIfAbsent(block.getWorld().getUID(), k -> new WorldIndex());
+        addTrigger(index, block.getX(), block.getY(), block.getZ());
+    }
+
+    public void removeTrigger(Block block) {
+        WorldIndex index = worlds.get(block.getWorld().getUID());
+        if (index == null) return;
+
+        int x = block.getX();
+        int y = block.getY();
+        int z = block.getZ();
+        long chunkKey = BlockKeys.chunkKey(x >> 4, z >> 4);
+        Stripe stripe = index.stripe(chunkKey);
+        synchronized (stripe) {
+            LongHashSet triggers = stripe.triggersByChunk.get(chunkKey);
+            if (triggers == null || !triggers.remove(BlockKeys.pack(x, y, z))) return;
+        }
+        updateSites(index, x, y, z, -1);
+    }
+
+    /**
+     * Snapshots a loaded chunk on its owning thread, scans it async and merges the result back on that thread.
+     */
+    private void scanChunk(Chunk chunk, WorldIndex index, Stripe stripe, long chunkKey) {
+        World world = chunk.getWorld();
+        ChunkSnapshot snapshot = chunk.getChunkSnapshot(false, false, false);
+        int minY = world.getMinHeight();
+        int maxY = world.getMaxHeight();
+        int chunkX = chunk.getX();
+        int chunkZ = chunk.getZ();
+
+        scheduler.runAsync(() -> {
+            long[] found = scan(snapshot, minY, maxY, chunkX << 4, chunkZ << 4);
+            scheduler.runAt(world, chunkX, chunkZ, () -> {
+                // Chunk was unloaded (or re-queued) before the scan finished
+                synchronized (stripe) {
+                    if (!stripe.pendingChunks.remove(chunkKey)) return;
+                }
+                for (long key : found) {
+                    addTrigger(index, BlockKeys.x(key), BlockKeys.y(key), BlockKeys.z(key));
+                }
+                synchronized (stripe) {
+                    stripe.indexedChunks.add(chunkKey);
+                }
+            });
+        });
+    }
+
+    public void unloadChunk(Chunk chunk) {
+        WorldIndex index = worlds.get(chunk.getWorld().getUID());
+        if (index == null) return;
+
+        long chunkKey = BlockKeys.chunkKey(chunk.getX(), chunk.getZ());
+        Stripe stripe = index.stripe(chunkKey);
+        LongHashSet triggers;
+        synchronized (stripe) {
+            stripe.pendingChunks.remove(chunkKey);
+            stripe.indexedChunks.remove(chunkKey);
+            triggers = stripe.triggersByChunk.remove(chunkKey);
+        }
+        if (triggers == null) return;
+
+        for (long key : triggers.toArray()) {
+            updateSites(index, BlockKeys.x(key), BlockKeys.y(key), BlockKeys.z(key), -1);
+        }
+    }
+
+    public void unloadWorld(World world) {
+        worlds.remove(world.getUID());
+    }
+
+    public int getSiteCount() {
+        int total = 0;
+        for (WorldIndex index : worlds.values()) {
+            for (Stripe stripe : index.stripes) {
+                synchronized (stripe) {
+                    total += stripe.sites.size();
+                }
+            }
+        }
+        return total;
+    }
+
+    private static long[] scan(ChunkSnapshot snapshot, int minY, int maxY, int baseX, int baseZ) {
+        LongHashSet found = new LongHashSet();
+        int sections = (maxY - minY) >> 4;
+        for (int section = 0; section < sections; section++) {
+            if (snapshot.isSectionEmpty(section)) continue;
+
+            int sectionMinY = minY + (section << 4);
+            for (int y = sectionMinY; y < sectionMinY + 16; y++) {
+                for (int x = 0; x < 16; x++) {
+                    for (int z = 0; z < 16; z++) {
+                        if (FenceUtils.isTrigger(snapshot.getBlockType(x, y, z))) {
+                            found.add(BlockKeys.pack(baseX + x, y, baseZ + z));
+                        }
+                    }
+                }
+            }
+        }
+        return found.toArray();
+    }
+
+    private void addTrigger(WorldIndex index, int x, int y, int z) {
+        long chunkKey = BlockKeys.chunkKey(x >> 4, z >> 4);
+        Stripe stripe = index.stripe(chunkKey);
+        synchronized (stripe) {
+            LongHashSet triggers = stripe.triggersByChunk.computeIfAbsent(chunkKey, k -> new LongHashSet());
+            if (!triggers.add(BlockKeys.pack(x, y, z))) return;
+        }
+        updateSites(index, x, y, z, 1);
+    }
+
+    private void updateSites(WorldIndex index, int x, int y, int z, int delta) {
+        addSite(index, x + 1, y, z, delta);
+        addSite(index, x - 1, y, z, delta);
+        addSite(index, x, y, z + 1, delta);
+        addSite(index, x, y, z - 1, delta);
+        addSite(index, x, y + 1, z, delta);
+    }
+
+    // Sites can sit in a neighbouring chunk, so each one locks its own stripe
+    private void addSite(WorldIndex index, int x, int y, int z, int delta) {
+        Stripe stripe = index.stripe(BlockKeys.chunkKey(x >> 4, z >> 4));
+        synchronized (stripe) {
+            stripe.sites.addTo(BlockKeys.pack(x, y, z), delta);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package FenceOreGen;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Everything the spawn path reads from config.yml, compiled in one go: level tables, upgrade prices,
+ * material flags, cached block data, placement and queue settings.
+ * A reload builds the next snapshot off the main thread and {@link GeneratorManager} publishes it with a single
+ * volatile write, so a spawn reads one snapshot and never sees a half-loaded configuration. Building one calls
+ * {@link Material#createBlockData()} and so needs a running server; {@link #compileTables} is the part that does
+ * not, which is what the draw simulator uses.
+ */
+public final class GeneratorSnapshot {
+    // generator-levels key (environment or world name) -> samplers indexed by level; missing levels point at level 1
+    private final Map<String, BlockSampler[]> worldSamplers;
+    // Same keys as worldSamplers -> price of each level, see UpgradeCostCurve
+    private final Map<String, double[]> upgradeCosts;
+    private final Set<Material> triggerBlocks;
+    private final Set<Material> replaceableBlocks;
+    private final MaterialFlags flags;
+    // Default block data of every material a table can produce, by ordinal, for physics-free placement
+    private final BlockData[] blockData;
+    private final long spawnDelay;
+    private final boolean applyPhysics;
+    private final SpawnRandom random;
+    private final int maxPerTick;
+    private final int maxPerChunkPerTick;
+    private final int backlogWarning;
+    private final boolean parkUnloaded;
+    private final int maxParked;
+    private final int maxPlayerDistance;
+
+    // Profiles resolved against this snapshot's tables; copy-on-write so the spawn path reads it without locking
+    private volatile Map<World, WorldProfile> profiles = new IdentityHashMap<>();
+
+    private GeneratorSnapshot(FileConfiguration config, Map<String, BlockSampler[]> worldSamplers,
+                              Map<String, double[]> upgradeCosts, Set<Material> triggerBlocks,
+                              Set<Material> replaceableBlocks) {
+        this.worldSamplers = Collections.unmodifiableMap(worldSamplers);
+        this.upgradeCosts = upgradeCosts;
+        this.triggerBlocks = Collections.unmodifiableSet(triggerBlocks);
+        this.replaceableBlocks = Collections.unmodifiableSet(replaceableBlocks);
+        this.flags = new MaterialFlags(triggerBlocks, replaceableBlocks);
+        this.blockData = cacheBlockData(worldSamplers);
+        this.spawnDelay = config.getLong("spawn-delay", 0L);
+        this.applyPhysics = !"no-physics".equalsIgnoreCase(config.getString("spawn-queue.placement", "physics"));
+        this.random = SpawnRandom.fromConfig(config.getString("rng.mode", "fast"));
+        this.maxPerTick = config.getInt("spawn-queue.max-per-tick", 200);
+        this.maxPerChunkPerTick = config.getInt("spawn-queue.max-per-chunk-per-tick", 8);
+        this.backlogWarning = config.getInt("spawn-queue.backlog-warning", 5000);
+        this.parkUnloaded = !"drop".equalsIgnoreCase(config.getString("spawn-queue.unloaded-chunks", "park"));
+        this.maxParked = config.getInt("spawn-queue.max-parked", 10000);
+        // Lives under protection; the old top-level key is still read for compatibility
+        this.maxPlayerDistance = config.getInt("protection.max-player-distance", config.getInt("max-player-distance", 5));
+    }
+
+    /**
+     * Compiles a loaded config. Safe to call from any thread; problems are logged and the entry skipped.
+     */
+    public static GeneratorSnapshot parse(FileConfiguration config, Logger logger) {
+        Set<Material> triggers = EnumSet.noneOf(Material.class);
+        for (String materialName : config.getStringList("settings.trigger-blocks")) {
+            Material material = Material.matchMaterial(materialName.trim().toUpperCase());
+            if (material != null) {
+                triggers.add(material);
+            } else {
+                logger.warning("[FenceGen] Invalid trigger material: " + materialName);
+            }
+        }
+        warnMissingFences(triggers, logger);
+
+        // Load replaceable blocks
+        Set<Material> replaceable = EnumSet.noneOf(Material.class);
+        for (String materialName : config.getStringList("settings.replaceable-blocks")) {
+            Material material = Material.matchMaterial(materialName.trim().toUpperCase());
+            if (material != null) {
+                replaceable.add(material);
+            } else {
+                logger.warning("[FenceGen] Invalid replaceable material: " + materialName);
+            }
+        }
+
+        Map<String, BlockSampler[]> tables = compileTables(config, logger);
+        return new GeneratorSnapshot(config, tables, compileCosts(config, tables, logger), triggers, replaceable);
+    }
+
+    /**
+     * Configs written before the newer fence types existed keep their old explicit list, so those fences would
+     * silently stop making generators. Names every fence an otherwise fence-based list leaves out.
+     */
+    private static void warnMissingFences(Set<Material> triggers, Logger logger) {
+        boolean listsFences = false;
+        List<String> missing = new ArrayList<>();
+        for (Material material : Material.values()) {
+            String name = material.name();
+            if (name.startsWith("LEGACY_") || !(name.endsWith("_FENCE") || name.endsWith("_FENCE_GATE"))) continue;
+            if (triggers.contains(material)) {
+                listsFences = true;
+            } else {
+                missing.add(name);
+            }
+        }
+        if (listsFences && !missing.isEmpty()) {
+            logger.warning("[FenceGen] settings.trigger-blocks does not list " + String.join(", ", missing)
+                    + "; these will not start generators. Add them, or empty the list to accept every fence");
+        }
+    }
+
+    private static Map<String, double[]> compileCosts(FileConfiguration config, Map<String, BlockSampler[]> tables,
+                                                      Logger logger) {
+        ConfigurationSection section = config.getConfigurationSection("upgrade-costs");
+        double base = config.getDouble("settings.upgrade-cost", 1000.0);
+        double multiplier = config.getDouble("settings.upgrade-cost-multiplier", 1.5);
+
+        Map<String, double[]> costs = new HashMap<>();
+        for (Map.Entry<String, BlockSampler[]> entry : tables.entrySet()) {
+            int maxLevel = Math.max(entry.getValue().length - 1, 1);
+            costs.put(entry.getKey(), UpgradeCostCurve.compile(section, entry.getKey(), maxLevel, base, multiplier, logger));
+        }
+        return costs;
+    }
+
+    /**
+     * Compiles the generator-levels section alone. Needs no server, also used by the offline simulator.
+     */
+    static Map<String, BlockSampler[]> compileTables(FileConfiguration config, Logger logger) {
+        // Load generator levels
+        ConfigurationSection generatorLevelsSection = config.getConfigurationSection("generator-levels");
+        if (generatorLevelsSection == null) {
+            logger.severe("[FenceGen] 'generator-levels' section is missing in config!");
+            return new HashMap<>();
+        }
+
+        boolean debug = config.getBoolean("settings.debug-mode", false);
+        Map<String, BlockSampler[]> compiled = new HashMap<>();
+        for (String worldType : generatorLevelsSection.getKeys(false)) {
+            ConfigurationSection worldSection = generatorLevelsSection.getConfigurationSection(worldType);
+            if (worldSection == null) {
+                logger.warning("[FenceGen] Skipping invalid world section: " + worldType);
+                continue;
+            }
+
+            Map<Integer, Map<Material, Double>> levelMap = new HashMap<>();
+
+            for (String levelKey : worldSection.getKeys(false)) {
+                if (!levelKey.matches("\\d+")) {
+                    logger.warning("[FenceGen] Skipping non-numeric level key '" + levelKey + "' in world " + worldType);
+                    continue;
+                }
+
+                int level = Integer.parseInt(levelKey);
+                ConfigurationSection levelSection = worldSection.getConfigurationSection(levelKey);
+                if (levelSection == null) {
+                    logger.warning("[FenceGen] Missing configuration for level " + level + " in world " + worldType);
+                    continue;
+                }
+
+                if (debug) logger.info("[DEBUG] Reading materials for " + worldType + " level " + level + ": " + levelSection.getKeys(false));
+
+                Map<Material, Double> materials = new HashMap<>();
+                for (Map.Entry<String, Object> entry : levelSection.getValues(false).entrySet()) {
+                    String materialKey = entry.getKey();
+                    Material material = Material.matchMaterial(materialKey.trim().toUpperCase());
+                    if (material == null) {
+                        logger.warning("[FenceGen] Invalid material '" + materialKey + "' in " + worldType + " level " + level);
+                        continue;
+                    }
+
+                    try {
+                        double chance = Double.parseDouble(entry.getValue().toString());
+                        materials.put(material, chance);
+                    } catch (NumberFormatException e) {
+                        logger.warning("[FenceGen] Invalid chance value for '" + materialKey + "': " + entry.getValue());
+                    }
+                }
+
+                if (!materials.isEmpty()) {
+                    levelMap.put(level, materials);
+                } else {
+                    logger.warning("[FenceGen] No valid materials found in level " + level + " of world " + worldType);
+                }
+            }
+
+            if (!levelMap.isEmpty()) {
+                compiled.put(worldType.toLowerCase(), compileLevels(worldType, levelMap, logger));
+            } else {
+                logger.warning("[FenceGen] No valid levels found for world " + worldType);
+            }
+        }
+        return compiled;
+    }
+
+    private static BlockSampler[] compileLevels(String worldType, Map<Integer, Map<Material, Double>> levelMap,
+                                                Logger logger) {
+        int maxLevel = Collections.max(levelMap.keySet());
+        BlockSampler[] levels = new BlockSampler[Math.max(maxLevel, 1) + 1];
+        for (Map.Entry<Integer, Map<Material, Double>> entry : levelMap.entrySet()) {
+            if (entry.getKey() < 0) continue;
+            BlockSampler sampler = BlockSampler.compile(entry.getValue());
+            if (sampler == null) {
+                logger.warning("[FenceGen] All chances are zero in " + worldType + " level " + entry.getKey());
+            }
+            levels[entry.getKey()] = sampler;
+        }
+
+        // Same fallback as before: unknown levels use level 1
+        for (int level = 0; level < levels.length; level++) {
+            if (!levelMap.containsKey(level)) {
+                levels[level] = levels[1];
+            }
+        }
+        return levels;
+    }
+
+    private static BlockData[] cacheBlockData(Map<String, BlockSampler[]> compiled) {
+        BlockData[] cache = new BlockData[Material.values().length];
+        for (BlockSampler[] levels : compiled.values()) {
+            for (BlockSampler sampler : levels) {
+                if (sampler == null) continue;
+                for (int i = 0; i < sampler.size(); i++) {
+                    Material material = sampler.getMaterial(i);
+                    if (cache[material.ordinal()] == null && material.isBlock()) {
+                        cache[material.ordinal()] = material.createBlockData();
+                    }
+                }
+            }
+        }
+        return cache;
+    }
+
+    public WorldProfile getProfile(World world) {
+        WorldProfile profile = profiles.get(world);
+        return profile != null ? profile : loadWorld(world);
+    }
+
+    synchronized WorldProfile loadWorld(World world) {
+        WorldProfile profile = resolveProfile(world);
+        Map<World, WorldProfile> copy = new IdentityHashMap<>(profiles);
+        copy.put(world, profile);
+        profiles = copy;
+        return profile;
+    }
+
+    synchronized void unloadWorld(World world) {
+        if (!profiles.containsKey(world)) return;
+        Map<World, WorldProfile> copy = new IdentityHashMap<>(profiles);
+        copy.remove(world);
+        profiles = copy;
+    }
+
+    private WorldProfile resolveProfile(World world) {
+        String worldType = WorldProfile.environmentKey(world);
+        // Bảng theo tên thế giới được ưu tiên hơn bảng theo môi trường
+        String key = world.getName().toLowerCase(Locale.ROOT);
+        BlockSampler[] levels = worldSamplers.get(key);
+        if (levels == null) {
+            key = worldType;
+            levels = worldSamplers.get(key);
+        }
+        if (levels == null) {
+            key = "overworld"; // Fallback to overworld
+            levels = worldSamplers.get(key);
+        }
+        return new WorldProfile(world.getName(), worldType, key, levels, upgradeCosts.get(key));
+    }
+
+    /**
+     * Compiled tables by lowercase generator-levels key (environment or world name), indexed by level.
+     */
+    public Map<String, BlockSampler[]> getWorldSamplers() {
+        return worldSamplers;
+    }
+
+    public Set<Material> getTriggerBlocks() {
+        return triggerBlocks;
+    }
+
+    public Set<Material> getReplaceableBlocks() {
+        return replaceableBlocks;
+    }
+
+    public MaterialFlags getFlags() {
+        return flags;
+    }
+
+    public BlockData getBlockData(Material material) {
+        int ordinal = material.ordinal();
+        return ordinal < blockData.length ? blockData[ordinal] : null;
+    }
+
+    public long getSpawnDelay() {
+        return spawnDelay;
+    }
+
+    public boolean isApplyPhysics() {
+        return applyPhysics;
+    }
+
+    public SpawnRandom getRandom() {
+        return random;
+    }
+
+    public int getMaxPerTick() {
+        return maxPerTick;
+    }
+
+    public int getMaxPerChunkPerTick() {
+        return maxPerChunkPerTick;
+    }
+
+    public int getBacklogWarning() {
+        return backlogWarning;
+    }
+
+    public boolean isParkUnloaded() {
+        return parkUnloaded;
+    }
+
+    public int getMaxParked() {
+        return maxParked;
+    }
+
+    public int getMaxPlayerDistance() {
+        return maxPlayerDistance;
+    }
+}
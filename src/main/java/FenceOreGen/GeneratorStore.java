@@ -0,0 +1,170 @@
+package FenceOreGen;
+
+import org.bukkit.Chunk;
+import org.bukkit.NamespacedKey;
+import org.bukkit.block.Block;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Per-generator records (owner, tier, last spawn) for loaded chunks.
+ * Each chunk's records live in its PersistentDataContainer as one packed byte array, so they load and unload
+ * with the chunk and a spawn reads its generator with one map lookup instead of searching for a player.
+ * Changes are written back to the container when the chunk unloads or the world saves.
+ */
+public class GeneratorStore extends ChunkDataStore<GeneratorStore.ChunkGenerators> {
+    private static final byte FORMAT_VERSION = 1;
+    // position + owner (two longs) + tier + last generated
+    private static final int RECORD_BYTES = 8 + 16 + 4 + 8;
+
+    private final NamespacedKey key;
+
+    // Guarded by its own monitor
+    static final class ChunkGenerators {
+        final Map<Long, GeneratorRecord> records = new HashMap<>();
+        boolean dirty;
+    }
+
+    public GeneratorStore(FenceOreGen plugin) {
+        super(plugin);
+        this.key = new NamespacedKey(plugin, "generators");
+    }
+
+    public GeneratorRecord get(Block trigger) {
+        ChunkGenerators generators = get(trigger.getWorld(), trigger.getX(), trigger.getZ());
+        if (generators == null) return null;
+        synchronized (generators) {
+            return generators.records.get(BlockKeys.pack(trigger.getX(), trigger.getY(), trigger.getZ()));
+        }
+    }
+
+    public GeneratorRecord create(Block trigger, UUID owner, int tier) {
+        GeneratorRecord record = new GeneratorRecord(owner, tier, 0L);
+        ChunkGenerators generators = chunk(trigger.getWorld().getUID(), trigger.getX() >> 4, trigger.getZ() >> 4);
+        synchronized (generators) {
+            generators.records.put(BlockKeys.pack(trigger.getX(), trigger.getY(), trigger.getZ()), record);
+            generators.dirty = true;
+        }
+        return record;
+    }
+
+    public void remove(Block trigger) {
+        ChunkGenerators generators = get(trigger.getWorld(), trigger.getX(), trigger.getZ());
+        if (generators == null) return;
+        synchronized (generators) {
+            if (generators.records.remove(BlockKeys.pack(trigger.getX(), trigger.getY(), trigger.getZ())) != null) {
+                generators.dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Level a generator spawns at: the owner's current level, up or down (e.g. after setlevel).
+     * An owner whose level is not in memory (offline and evicted) is loaded in the background and the stored tier,
+     * the level last seen, is used until then. Also stamps the spawn time in memory; the chunk is only marked for
+     * saving when the tier changes, so busy generators do not rewrite their chunk data on every save.
+     */
+    public int useGenerator(Block trigger, GeneratorRecord record) {
+        int tier = plugin.getLevelCache().getOrLoad(record.getOwner(), record.getTier());
+        record.setLastGenerated(trigger.getWorld().getFullTime());
+        if (tier != record.getTier()) {
+            record.setTier(tier);
+            markDirty(trigger);
+        }
+        return record.getTier();
+    }
+
+    @Override
+    ChunkGenerators read(Chunk chunk) {
+        byte[] data = chunk.getPersistentDataContainer().get(key, PersistentDataType.BYTE_ARRAY);
+        if (data == null || data.length == 0) return null;
+
+        ChunkGenerators generators = new ChunkGenerators();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            byte version = buffer.get();
+            if (version != FORMAT_VERSION) {
+                plugin.getLogger().warning("[FenceGen] Unknown generator data version " + version + " in chunk "
+                        + chunk.getX() + "," + chunk.getZ());
+                return null;
+            }
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                long position = buffer.getLong();
+                UUID owner = new UUID(buffer.getLong(), buffer.getLong());
+                int tier = buffer.getInt();
+                long lastGenerated = buffer.getLong();
+                generators.records.put(position, new GeneratorRecord(owner, tier, lastGenerated));
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "[FenceGen] Corrupt generator data in chunk "
+                    + chunk.getX() + "," + chunk.getZ(), e);
+            return null;
+        }
+        return generators;
+    }
+
+    public int getRecordCount() {
+        int total = 0;
+        for (Map<Long, ChunkGenerators> chunks : worlds.values()) {
+            for (ChunkGenerators generators : chunks.values()) {
+                synchronized (generators) {
+                    total += generators.records.size();
+                }
+            }
+        }
+        return total;
+    }
+
+    private ChunkGenerators chunk(UUID worldId, int chunkX, int chunkZ) {
+        return worlds.computeIfAbsent(worldId, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(BlockKeys.chunkKey(chunkX, chunkZ), k -> new ChunkGenerators());
+    }
+
+    private void markDirty(Block trigger) {
+        ChunkGenerators generators = get(trigger.getWorld(), trigger.getX(), trigger.getZ());
+        if (generators == null) return;
+        synchronized (generators) {
+            generators.dirty = true;
+        }
+    }
+
+    @Override
+    void write(Chunk chunk, ChunkGenerators generators) {
+        byte[] data;
+        synchronized (generators) {
+            if (!generators.dirty) return;
+            generators.dirty = false;
+            if (generators.records.isEmpty()) {
+                data = null;
+            } else {
+                ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + generators.records.size() * RECORD_BYTES);
+                buffer.put(FORMAT_VERSION);
+                buffer.putInt(generators.records.size());
+                for (Map.Entry<Long, GeneratorRecord> entry : generators.records.entrySet()) {
+                    GeneratorRecord record = entry.getValue();
+                    buffer.putLong(entry.getKey());
+                    buffer.putLong(record.getOwner().getMostSignificantBits());
+                    buffer.putLong(record.getOwner().getLeastSignificantBits());
+                    buffer.putInt(record.getTier());
+                    buffer.putLong(record.getLastGenerated());
+                }
+                data = buffer.array();
+            }
+        }
+
+        PersistentDataContainer container = chunk.getPersistentDataContainer();
+        if (data == null) {
+            container.remove(key);
+        } else {
+            container.set(key, PersistentDataType.BYTE_ARRAY, data);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package FenceOreGen;
+
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides whose level a generator uses. Normally that is the player's own UUID. With
+ * {@code skyblock.island-levels} on and SuperiorSkyblock2 installed, it is the UUID of the island, so tiers and
+ * upgrades are shared by every member.
+ * Whether SuperiorSkyblock2 is present is checked once on enable. The island owning a chunk, and the island of each
+ * online player, are looked up once and cached until the chunk unloads, the player quits or island membership
+ * changes; islands never share a chunk.
+ * Island levels live in the level storage next to player levels. An island is pinned in {@link PlayerLevelCache}
+ * while any cached chunk or online member points at it, so it is loaded in the background when first seen and only
+ * becomes evictable once its last chunk unloads and all its members are offline.
+ */
+public class IslandLevels {
+    // Cached "chunk has no island", ConcurrentHashMap cannot hold null
+    private static final UUID NO_ISLAND = new UUID(0L, 0L);
+
+    private final FenceOreGen plugin;
+    private final SuperiorSkyblockHook hook;
+    private final Map<UUID, Map<Long, UUID>> chunkIslands = new ConcurrentHashMap<>();
+    // Online player -> island, or NO_ISLAND
+    private final Map<UUID, UUID> playerIslands = new ConcurrentHashMap<>();
+    // Island -> number of cached chunks and players pointing at it; pinned while positive
+    private final Map<UUID, Integer> references = new ConcurrentHashMap<>();
+
+    public IslandLevels(FenceOreGen plugin, boolean islandMode) {
+        this.plugin = plugin;
+        this.hook = islandMode ? createHook() : null;
+    }
+
+    private SuperiorSkyblockHook createHook() {
+        if (!plugin.getServer().getPluginManager().isPluginEnabled("SuperiorSkyblock2")) {
+            plugin.getLogger().warning("[FenceGen] skyblock.island-levels is on but SuperiorSkyblock2 is not installed, using player levels");
+            return null;
+        }
+        SuperiorSkyblockHook created = new SuperiorSkyblockHook(this);
+        plugin.getServer().getPluginManager().registerEvents(created, plugin);
+        plugin.getLogger().info("[FenceGen] Island levels enabled (SuperiorSkyblock2)");
+        return created;
+    }
+
+    public boolean isEnabled() {
+        return hook != null;
+    }
+
+    /**
+     * Level holder for commands run by a player: their island, or the player if they have none.
+     */
+    public UUID getHolder(Player player) {
+        if (hook == null) return player.getUniqueId();
+        UUID island = getIslandOf(player);
+        return island != null ? island : player.getUniqueId();
+    }
+
+    /**
+     * Level holder for a generator block: the island containing it, or {@code fallback} outside islands.
+     */
+    public UUID getHolder(Block block, UUID fallback) {
+        if (hook == null) return fallback;
+        UUID island = getIslandAt(block);
+        return island != null ? island : fallback;
+    }
+
+    /**
+     * Resolves a joining player's island and starts loading its level, so it is resident before it is needed.
+     */
+    public void onJoin(Player player) {
+        if (hook == null) return;
+        playerIslands.remove(player.getUniqueId());
+        getIslandOf(player);
+    }
+
+    public void onQuit(Player player) {
+        uncache(playerIslands, player.getUniqueId());
+    }
+
+    private UUID getIslandOf(Player player) {
+        UUID island = playerIslands.get(player.getUniqueId());
+        if (island == null) {
+            island = hook.getIslandOf(player);
+            island = cache(playerIslands, player.getUniqueId(), island != null ? island : NO_ISLAND);
+        }
+        return island == NO_ISLAND ? null : island;
+    }
+
+    private UUID getIslandAt(Block block) {
+        Map<Long, UUID> chunks = chunkIslands.computeIfAbsent(block.getWorld().getUID(), k -> new ConcurrentHashMap<>());
+        long chunkKey = BlockKeys.chunkKey(block.getX() >> 4, block.getZ() >> 4);
+        UUID island = chunks.get(chunkKey);
+        if (island == null) {
+            island = hook.getIslandAt(block.getLocation());
+            island = cache(chunks, chunkKey, island != null ? island : NO_ISLAND);
+        }
+        return island == NO_ISLAND ? null : island;
+    }
+
+    /**
+     * Caches a lookup and takes a reference on its island. Returns the cached value, which is another thread's
+     * if it got there first.
+     */
+    private <K> UUID cache(Map<K, UUID> cache, K key, UUID island) {
+        // Referenced before it is visible, so a concurrent uncache never drops the count below zero
+        acquire(island);
+        UUID previous = cache.putIfAbsent(key, island);
+        if (previous == null) return island;
+        release(island);
+        return previous;
+    }
+
+    private <K> void uncache(Map<K, UUID> cache, K key) {
+        UUID island = cache.remove(key);
+        if (island != null) release(island);
+    }
+
+    private void acquire(UUID island) {
+        if (island == NO_ISLAND) return;
+        references.compute(island, (k, count) -> {
+            if (count == null) {
+                plugin.getLevelCache().pin(island);
+                return 1;
+            }
+            return count + 1;
+        });
+    }
+
+    private void release(UUID island) {
+        if (island == NO_ISLAND) return;
+        references.computeIfPresent(island, (k, count) -> {
+            if (count > 1) return count - 1;
+            plugin.getLevelCache().unpin(island);
+            return null;
+        });
+    }
+
+    public void unloadChunk(Chunk chunk) {
+        Map<Long, UUID> chunks = chunkIslands.get(chunk.getWorld().getUID());
+        if (chunks != null) {
+            uncache(chunks, BlockKeys.chunkKey(chunk.getX(), chunk.getZ()));
+        }
+    }
+
+    public void unloadWorld(World world) {
+        Map<Long, UUID> chunks = chunkIslands.remove(world.getUID());
+        if (chunks != null) {
+            chunks.values().forEach(this::release);
+        }
+    }
+
+    /**
+     * Drops every cached lookup, called when islands are created, disbanded or change owner. Dropping the lookups
+     * releases their pins, so a disbanded island's level becomes evictable.
+     * SuperiorSkyblock2 fires its events before applying the change, so the caches are cleared again next tick.
+     */
+    void invalidate() {
+        clearCaches();
+        plugin.getTaskScheduler().runGlobal(this::clearCaches);
+    }
+
+    private void clearCaches() {
+        for (Map<Long, UUID> chunks : chunkIslands.values()) {
+            chunks.keySet().forEach(chunkKey -> uncache(chunks, chunkKey));
+        }
+        playerIslands.keySet().forEach(player -> uncache(playerIslands, player));
+    }
+
+    /**
+     * Called when a player joins, leaves or is kicked from an island. An online player joining is cached with the new
+     * island right away; otherwise the next lookup resolves the player again.
+     *
+     * @param joined island the player joins, loaded ahead of use; null when leaving
+     */
+    void onMembershipChanged(UUID player, UUID joined) {
+        uncache(playerIslands, player);
+        if (joined != null && plugin.getServer().getPlayer(player) != null) {
+            cache(playerIslands, player, joined);
+            return;
+        }
+        plugin.getTaskScheduler().runGlobal(() -> uncache(playerIslands, player));
+    }
+}
@@ -0,0 +1,123 @@
+package FenceOreGen;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Write-behind persistence for player levels.
+ * Level changes are recorded as dirty entries and handed to the {@link LevelStorage} in coalesced batches
+ * on a background thread. An entry stays dirty until the batch holding it has been written, so the cache never
+ * evicts a level that is only in flight, and {@link #load(UUID)} sees it before the storage does.
+ */
+public class LevelPersistence {
+    private final FenceOreGen plugin;
+    private final LevelStorage storage;
+    private final Map<UUID, Integer> dirty = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FenceOreGen-Storage");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LevelPersistence(FenceOreGen plugin, LevelStorage storage) {
+        this.plugin = plugin;
+        this.storage = storage;
+    }
+
+    public LevelStorage getStorage() {
+        return storage;
+    }
+
+    public void start(long intervalSeconds) {
+        long interval = Math.max(1, intervalSeconds);
+        executor.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.SECONDS);
+    }
+
+    public void markDirty(UUID uuid, int level) {
+        dirty.put(uuid, level);
+    }
+
+    public boolean isDirty(UUID uuid) {
+        return dirty.containsKey(uuid);
+    }
+
+    /**
+     * Stored level of a holder, or the pending one if a change has not been written yet. Blocking.
+     */
+    public OptionalInt load(UUID uuid) throws IOException {
+        Integer pending = dirty.get(uuid);
+        return pending != null ? OptionalInt.of(pending) : storage.load(uuid);
+    }
+
+    public int getPendingCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Queues a flush on the storage thread without waiting for it.
+     */
+    public void flushAsync() {
+        if (!executor.isShutdown()) {
+            executor.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Stops the background thread, writes everything still pending on the calling thread and closes the storage.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("[FenceGen] Storage thread did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        try {
+            storage.close();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Không thể đóng kho dữ liệu level", e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Không thể lưu dữ liệu level người chơi", e);
+        }
+    }
+
+    /**
+     * Hands all pending changes to the storage backend as one batch. Safe to call from any thread.
+     */
+    public synchronized void flush() throws IOException {
+        Map<UUID, Integer> batch = new HashMap<>(dirty);
+        if (batch.isEmpty()) return;
+
+        long start = System.nanoTime();
+        try {
+            storage.saveAll(batch);
+        } catch (IOException e) {
+            // Entries are still dirty, the next flush retries them
+            plugin.getMetrics().recordSaveFailure();
+            throw e;
+        }
+        // remove(key, value) keeps an entry that was updated again while the batch was being written
+        batch.forEach(dirty::remove);
+        plugin.getMetrics().recordSave(System.nanoTime() - start, batch.size());
+        if (plugin.isDebugMode()) {
+            plugin.getLogger().info("Đã lưu dữ liệu người chơi (" + batch.size() + ")");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package FenceOreGen;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+
+/**
+ * Backend that stores generator levels. Implementations must be safe to call from the storage thread
+ * and the main thread at the same time.
+ */
+public interface LevelStorage {
+
+    /**
+     * Reads one stored level.
+     *
+     * @return the level, or empty if the player has never been saved
+     */
+    OptionalInt load(UUID uuid) throws IOException;
+
+    /**
+     * Reads every stored level. Only meant for migrations and tooling.
+     */
+    Map<UUID, Integer> loadAll() throws IOException;
+
+    /**
+     * Inserts or updates all given levels in one batch. How much is written depends on the backend:
+     * SQLite upserts only these rows, YAML rewrites the whole file.
+     */
+    void saveAll(Map<UUID, Integer> levels) throws IOException;
+
+    boolean isEmpty() throws IOException;
+
+    void close() throws IOException;
+}
@@ -0,0 +1,93 @@
+package FenceOreGen;
+
+/**
+ * Open-addressing set of longs with linear probing. Not thread-safe.
+ */
+public final class LongHashSet extends OpenAddressingTable {
+    private long[] keys;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expected) {
+        super(0.5f);
+        allocate(capacityFor(expected));
+    }
+
+    @Override
+    void allocate(int capacity) {
+        super.allocate(capacity);
+        keys = new long[capacity];
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int indexOf(long key) {
+        int i = mix(key) & mask;
+        while (used[i]) {
+            if (keys[i] == key) return i;
+            i = next(i);
+        }
+        return -1;
+    }
+
+    public boolean contains(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    public boolean add(long key) {
+        int i = mix(key) & mask;
+        while (used[i]) {
+            if (keys[i] == key) return false;
+            i = next(i);
+        }
+        used[i] = true;
+        keys[i] = key;
+        inserted();
+        return true;
+    }
+
+    public boolean remove(long key) {
+        int i = indexOf(key);
+        if (i < 0) return false;
+        removeAt(i);
+        return true;
+    }
+
+    @Override
+    int homeOf(int slot) {
+        return mix(keys[slot]) & mask;
+    }
+
+    @Override
+    void moveSlot(int from, int to) {
+        keys[to] = keys[from];
+    }
+
+    @Override
+    void rehash(int capacity) {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) add(oldKeys[i]);
+        }
+    }
+
+    /**
+     * Copies the current elements into a new array.
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int n = 0;
+        for (int i = 0; i < used.length; i++) {
+            if (used[i]) result[n++] = keys[i];
+        }
+        return result;
+    }
+}
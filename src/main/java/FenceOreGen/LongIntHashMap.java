@@ -0,0 +1,118 @@
+package FenceOreGen;
+
+/**
+ * Open-addressing long to int map with linear probing. Avoids boxing for packed block keys.
+ * Not thread-safe.
+ */
+public final class LongIntHashMap extends OpenAddressingTable {
+    private long[] keys;
+    private int[] values;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expected) {
+        super(0.5f);
+        allocate(capacityFor(expected));
+    }
+
+    @Override
+    void allocate(int capacity) {
+        super.allocate(capacity);
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int indexOf(long key) {
+        int i = mix(key) & mask;
+        while (used[i]) {
+            if (keys[i] == key) return i;
+            i = next(i);
+        }
+        return -1;
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    public int get(long key, int defaultValue) {
+        int i = indexOf(key);
+        return i >= 0 ? values[i] : defaultValue;
+    }
+
+    public int put(long key, int value, int defaultValue) {
+        int i = mix(key) & mask;
+        while (used[i]) {
+            if (keys[i] == key) {
+                int old = values[i];
+                values[i] = value;
+                return old;
+            }
+            i = next(i);
+        }
+        used[i] = true;
+        keys[i] = key;
+        values[i] = value;
+        inserted();
+        return defaultValue;
+    }
+
+    /**
+     * Adds {@code delta} to the value for {@code key} (missing keys start at 0).
+     * The entry is removed when the result reaches 0.
+     *
+     * @return the new value
+     */
+    public int addTo(long key, int delta) {
+        int i = indexOf(key);
+        if (i < 0) {
+            if (delta != 0) put(key, delta, 0);
+            return delta;
+        }
+        int updated = values[i] + delta;
+        if (updated == 0) {
+            removeAt(i);
+        } else {
+            values[i] = updated;
+        }
+        return updated;
+    }
+
+    public int remove(long key, int defaultValue) {
+        int i = indexOf(key);
+        if (i < 0) return defaultValue;
+        int old = values[i];
+        removeAt(i);
+        return old;
+    }
+
+    @Override
+    int homeOf(int slot) {
+        return mix(keys[slot]) & mask;
+    }
+
+    @Override
+    void moveSlot(int from, int to) {
+        keys[to] = keys[from];
+        values[to] = values[from];
+    }
+
+    @Override
+    void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) put(oldKeys[i], oldValues[i], 0);
+        }
+    }
+}
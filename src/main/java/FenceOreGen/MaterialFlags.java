@@ -0,0 +1,80 @@
+package FenceOreGen;
+
+import org.bukkit.Material;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Material classification table indexed by {@link Material#ordinal()}, one bitset of flags per material.
+ * Built once per config load (including the compiled {@code trigger-blocks} set), so every check on the hot path
+ * is a single array load with no string work.
+ * The active table is swapped atomically and can be read from any thread.
+ */
+public final class MaterialFlags {
+    public static final int FENCE = 1;
+    public static final int WATER = 1 << 1;
+    public static final int ORE = 1 << 2;
+    public static final int REPLACEABLE = 1 << 3;
+    public static final int TRIGGER = 1 << 4;
+
+    private static volatile MaterialFlags current = new MaterialFlags(Collections.emptySet(), Collections.emptySet());
+
+    private final byte[] flags;
+
+    public MaterialFlags(Collection<Material> triggers, Collection<Material> replaceable) {
+        Material[] materials = Material.values();
+        flags = new byte[materials.length];
+        for (Material material : materials) {
+            String name = material.name();
+            int value = 0;
+            if (name.endsWith("_FENCE") || name.endsWith("_FENCE_GATE")) value |= FENCE;
+            if (material == Material.WATER) value |= WATER;
+            if (name.endsWith("_ORE")) value |= ORE;
+            flags[material.ordinal()] = (byte) value;
+        }
+        if (triggers.isEmpty()) {
+            // No trigger-blocks configured: keep the old behaviour where every fence is a trigger
+            for (int i = 0; i < flags.length; i++) {
+                if ((flags[i] & FENCE) != 0) flags[i] |= TRIGGER;
+            }
+        }
+        for (Material material : triggers) {
+            flags[material.ordinal()] |= TRIGGER;
+        }
+        for (Material material : replaceable) {
+            flags[material.ordinal()] |= REPLACEABLE;
+        }
+    }
+
+    public static MaterialFlags current() {
+        return current;
+    }
+
+    public static void install(MaterialFlags table) {
+        current = table;
+    }
+
+    /**
+     * Returns true if the material has any of the flags in {@code mask}.
+     */
+    public boolean is(Material material, int mask) {
+        return material != null && (flags[material.ordinal()] & mask) != 0;
+    }
+
+    public static boolean isFence(Material material) {
+        return current.is(material, FENCE);
+    }
+
+    public static boolean isWater(Material material) {
+        return current.is(material, WATER);
+    }
+
+    public static boolean isTrigger(Material material) {
+        return current.is(material, TRIGGER);
+    }
+
+    public static boolean isReplaceable(Material material) {
+        return current.is(material, REPLACEABLE);
+    }
+}
@@ -52,6 +52,7 @@ public class MessageManager {
         loadSection(config, "errors");
         loadSection(config, "success");
         loadSection(config, "titles");
+        loadSection(config, "stats");
         loadSection(config, "messages");
 
         setDefaults();
@@ -85,14 +86,29 @@ public class MessageManager {
 
         messages.putIfAbsent("success.level-set", "&aYour generator level has been set to %level%");
         messages.putIfAbsent("success.upgraded", "&aUpgraded to level %level% for %cost%$");
+        messages.putIfAbsent("errors.upgrade-pending", "&cYour previous upgrade is still being processed!");
+        messages.putIfAbsent("errors.upgrade-failed", "&cThe payment could not be completed, please try again!");
+        messages.putIfAbsent("errors.upgrade-conflict", "&cYour level changed during the upgrade, %cost% was refunded!");
+        messages.putIfAbsent("errors.level-loading", "&cYour level is still loading, please try again in a moment!");
 
         messages.putIfAbsent("commands.main", "&6/fencegen &e- Show help menu");
         messages.putIfAbsent("commands.level", "&6/fencegen level [player] &e- Check generator level");
         messages.putIfAbsent("commands.upgrade", "&6/fencegen upgrade &e- Upgrade your generator");
         messages.putIfAbsent("commands.setlevel", "&6/fencegen setlevel <level> &e- Set generator level (Admin)");
         messages.putIfAbsent("commands.reload", "&6/fencegen reload &e- Reload configuration (Admin)");
+        messages.putIfAbsent("commands.stats", "&6/fencegen stats [export] &e- Show or export generator metrics (Admin)");
+        messages.putIfAbsent("success.stats-exported", "&aMetrics exported to %file%");
+        messages.putIfAbsent("errors.stats-export-failed", "&cCould not export metrics, see console!");
         messages.putIfAbsent("commands.level-info", "&aGenerator level: %level%");
 
+        messages.putIfAbsent("stats.header", "&6=== &eFenceOreGen metrics &6===");
+        messages.putIfAbsent("stats.flows", "&eWater flows: &f%seen% &7(accepted %accepted%, ignored %rejected%, average %average% µs)");
+        messages.putIfAbsent("stats.spawns", "&eSpawns: &f%executed% &7(queued %queued%, coalesced %coalesced%, skipped %skipped%, pending %backlog%, waiting for chunk %parked%, dropped %dropped%)");
+        messages.putIfAbsent("stats.generators", "&eStored generators: &f%records% &7(tracked sites %sites%)");
+        messages.putIfAbsent("stats.queue-tick", "&eQueue tick: &f%average% ms &7(%count% ticks)");
+        messages.putIfAbsent("stats.saves", "&eData saves: &f%average% ms &7(%count% saves, %failures% failed, %pending% pending)");
+        messages.putIfAbsent("stats.distribution", "&eDistribution (%table%, level %level%, %total% blocks): &7%blocks%");
+
         messages.putIfAbsent("plugin-enabled", "&aFenceOreGen has been enabled!");
         messages.putIfAbsent("plugin-disabled", "&aFenceOreGen has been disabled!");
     }
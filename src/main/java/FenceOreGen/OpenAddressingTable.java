@@ -0,0 +1,92 @@
+package FenceOreGen;
+
+import java.util.Arrays;
+
+/**
+ * Slot bookkeeping shared by the open-addressing tables {@link LongHashSet}, {@link LongIntHashMap} and
+ * {@link UuidIntMap}: power-of-two capacity, linear probing, growth and backward-shift deletion.
+ * Subclasses keep their keys and values in parallel arrays indexed by slot and supply the hash of a slot,
+ * slot moves and the rebuild on growth. Not thread-safe.
+ */
+abstract class OpenAddressingTable {
+    private final float loadFactor;
+    boolean[] used;
+    int size;
+    int mask;
+
+    OpenAddressingTable(float loadFactor) {
+        this.loadFactor = loadFactor;
+    }
+
+    /**
+     * Smallest power-of-two capacity that holds {@code expected} entries below the load factor.
+     */
+    final int capacityFor(int expected) {
+        return Integer.highestOneBit(Math.max(4, (int) (expected / loadFactor)) - 1) << 1;
+    }
+
+    /**
+     * Allocates empty slot arrays; subclasses allocate their key and value arrays as well.
+     */
+    void allocate(int capacity) {
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Home slot of the entry stored at {@code slot}.
+     */
+    abstract int homeOf(int slot);
+
+    /**
+     * Copies the key and value of slot {@code from} into slot {@code to}.
+     */
+    abstract void moveSlot(int from, int to);
+
+    /**
+     * Allocates {@code capacity} slots and inserts every entry of the old arrays again.
+     */
+    abstract void rehash(int capacity);
+
+    final int next(int slot) {
+        return (slot + 1) & mask;
+    }
+
+    /**
+     * Called after a key was written into a free slot; grows the table past the load factor.
+     */
+    final void inserted() {
+        if (++size > (mask + 1) * loadFactor) {
+            rehash((mask + 1) << 1);
+        }
+    }
+
+    final void removeAt(int i) {
+        // Backward-shift deletion keeps probe chains intact without tombstones
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = next(j);
+            if (!used[j]) break;
+            if (((j - homeOf(j)) & mask) >= ((j - gap) & mask)) {
+                moveSlot(j, gap);
+                gap = j;
+            }
+        }
+        used[gap] = false;
+        size--;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+}
@@ -0,0 +1,125 @@
+package FenceOreGen;
+
+import org.bukkit.Chunk;
+import org.bukkit.NamespacedKey;
+import org.bukkit.block.Block;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which blocks were placed by players, per chunk.
+ * Each chunk keeps a sorted int array of chunk-local positions in its PersistentDataContainer, so markers
+ * survive restarts, are only held in memory while the chunk is loaded and cost four bytes per block.
+ */
+public class PlacedBlockStore extends ChunkDataStore<PlacedBlockStore.ChunkMarks> {
+    private final NamespacedKey key;
+
+    // Guarded by its own monitor
+    static final class ChunkMarks {
+        int[] positions;
+        int size;
+        boolean dirty;
+
+        ChunkMarks(int[] positions) {
+            this.positions = positions;
+            this.size = positions.length;
+        }
+
+        boolean contains(int position) {
+            return Arrays.binarySearch(positions, 0, size, position) >= 0;
+        }
+
+        boolean add(int position) {
+            int index = Arrays.binarySearch(positions, 0, size, position);
+            if (index >= 0) return false;
+
+            int insert = -index - 1;
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(8, size + (size >> 1)));
+            }
+            System.arraycopy(positions, insert, positions, insert + 1, size - insert);
+            positions[insert] = position;
+            size++;
+            dirty = true;
+            return true;
+        }
+
+        boolean remove(int position) {
+            int index = Arrays.binarySearch(positions, 0, size, position);
+            if (index < 0) return false;
+
+            System.arraycopy(positions, index + 1, positions, index, size - index - 1);
+            size--;
+            dirty = true;
+            return true;
+        }
+    }
+
+    public PlacedBlockStore(FenceOreGen plugin) {
+        super(plugin);
+        this.key = new NamespacedKey(plugin, "placed");
+    }
+
+    public void mark(Block block) {
+        ChunkMarks marks = worlds.computeIfAbsent(block.getWorld().getUID(), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(BlockKeys.chunkKey(block.getX() >> 4, block.getZ() >> 4), k -> new ChunkMarks(new int[0]));
+        synchronized (marks) {
+            marks.add(localKey(block));
+        }
+    }
+
+    public void unmark(Block block) {
+        ChunkMarks marks = marks(block);
+        if (marks == null) return;
+        synchronized (marks) {
+            marks.remove(localKey(block));
+        }
+    }
+
+    public boolean isPlacedByPlayer(Block block) {
+        ChunkMarks marks = marks(block);
+        if (marks == null) return false;
+        synchronized (marks) {
+            return marks.contains(localKey(block));
+        }
+    }
+
+    @Override
+    ChunkMarks read(Chunk chunk) {
+        int[] data = chunk.getPersistentDataContainer().get(key, PersistentDataType.INTEGER_ARRAY);
+        if (data == null || data.length == 0) return null;
+
+        // Written sorted, but sorting again is cheap and keeps binary search safe on hand-edited data
+        Arrays.sort(data);
+        return new ChunkMarks(data);
+    }
+
+    private ChunkMarks marks(Block block) {
+        return get(block.getWorld(), block.getX(), block.getZ());
+    }
+
+    @Override
+    void write(Chunk chunk, ChunkMarks marks) {
+        int[] data;
+        synchronized (marks) {
+            if (!marks.dirty) return;
+            marks.dirty = false;
+            data = Arrays.copyOf(marks.positions, marks.size);
+        }
+
+        PersistentDataContainer container = chunk.getPersistentDataContainer();
+        if (data.length == 0) {
+            container.remove(key);
+        } else {
+            container.set(key, PersistentDataType.INTEGER_ARRAY, data);
+        }
+    }
+
+    // Height above the world floor in the high bits, then local x and z, so sorting keeps layers together
+    private static int localKey(Block block) {
+        return ((block.getY() - block.getWorld().getMinHeight()) << 8) | ((block.getX() & 15) << 4) | (block.getZ() & 15);
+    }
+}
@@ -0,0 +1,123 @@
+package FenceOreGen;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Per-world grid of online player positions bucketed by chunk.
+ * Nearest-player queries only visit the buckets that overlap the search radius.
+ * Safe for region-threaded servers: a player's entry is only written from that player's own thread, buckets
+ * are copy-on-write (they change only when a player crosses a chunk border) and readers may see a position
+ * one move event old.
+ */
+public class PlayerGrid {
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<UUID, Map<Long, List<Entry>>> worlds = new ConcurrentHashMap<>();
+
+    private static final class Entry {
+        final Player player;
+        UUID worldId;
+        long chunkKey;
+        volatile double x;
+        volatile double y;
+        volatile double z;
+
+        Entry(Player player) {
+            this.player = player;
+        }
+    }
+
+    public void update(Player player, Location location) {
+        World world = location.getWorld();
+        if (world == null) return;
+
+        Entry entry = entries.get(player.getUniqueId());
+        UUID worldId = world.getUID();
+        long chunkKey = BlockKeys.chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+
+        if (entry == null) {
+            entry = new Entry(player);
+            entries.put(player.getUniqueId(), entry);
+            link(entry, worldId, chunkKey);
+        } else if (entry.chunkKey != chunkKey || !entry.worldId.equals(worldId)) {
+            unlink(entry);
+            link(entry, worldId, chunkKey);
+        }
+
+        entry.x = location.getX();
+        entry.y = location.getY();
+        entry.z = location.getZ();
+    }
+
+    public void remove(Player player) {
+        Entry entry = entries.remove(player.getUniqueId());
+        if (entry != null) {
+            unlink(entry);
+        }
+    }
+
+    /**
+     * Finds the closest tracked player within {@code maxDistance} of the given position.
+     *
+     * @return the player, or null if nobody is in range
+     */
+    public Player getNearest(World world, double x, double y, double z, double maxDistance) {
+        Map<Long, List<Entry>> buckets = worlds.get(world.getUID());
+        if (buckets == null) return null;
+
+        int minChunkX = (int) Math.floor(x - maxDistance) >> 4;
+        int maxChunkX = (int) Math.floor(x + maxDistance) >> 4;
+        int minChunkZ = (int) Math.floor(z - maxDistance) >> 4;
+        int maxChunkZ = (int) Math.floor(z + maxDistance) >> 4;
+
+        Player closest = null;
+        double best = maxDistance * maxDistance;
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                List<Entry> bucket = buckets.get(BlockKeys.chunkKey(chunkX, chunkZ));
+                if (bucket == null) continue;
+
+                for (Entry entry : bucket) {
+                    double dx = entry.x - x;
+                    double dy = entry.y - y;
+                    double dz = entry.z - z;
+                    double distSq = dx * dx + dy * dy + dz * dz;
+                    if (distSq <= best) {
+                        best = distSq;
+                        closest = entry.player;
+                    }
+                }
+            }
+        }
+        return closest;
+    }
+
+    private void link(Entry entry, UUID worldId, long chunkKey) {
+        entry.worldId = worldId;
+        entry.chunkKey = chunkKey;
+        worlds.computeIfAbsent(worldId, k -> new ConcurrentHashMap<>())
+                .compute(chunkKey, (k, bucket) -> {
+                    if (bucket == null) bucket = new CopyOnWriteArrayList<>();
+                    bucket.add(entry);
+                    return bucket;
+                });
+    }
+
+    private void unlink(Entry entry) {
+        Map<Long, List<Entry>> buckets = worlds.get(entry.worldId);
+        if (buckets == null) return;
+
+        // Atomic per bucket, so a concurrent link into the same chunk cannot be lost
+        buckets.computeIfPresent(entry.chunkKey, (k, bucket) -> {
+            bucket.remove(entry);
+            return bucket.isEmpty() ? null : bucket;
+        });
+    }
+}
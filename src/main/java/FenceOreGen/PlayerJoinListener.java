@@ -1,8 +1,11 @@
 package FenceOreGen;
 
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 
 import java.util.UUID;
 
@@ -13,9 +16,24 @@ public class PlayerJoinListener implements Listener {
         this.plugin = plugin;
     }
 
+    // Đọc level trên luồng đăng nhập bất đồng bộ để không chặn main thread
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+        plugin.getLevelCache().preload(event.getUniqueId());
+    }
+
     @EventHandler
     public void onJoin(PlayerJoinEvent event) {
         UUID uuid = event.getPlayer().getUniqueId();
-        plugin.getPlayerLevels().putIfAbsent(uuid, 1);
+        plugin.getLevelCache().onJoin(uuid);
+        // Chế độ đảo: tải trước level của đảo người chơi trên luồng nền
+        plugin.getIslandLevels().onJoin(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        plugin.getLevelCache().onQuit(event.getPlayer().getUniqueId());
+        plugin.getIslandLevels().onQuit(event.getPlayer());
     }
 }
@@ -0,0 +1,241 @@
+package FenceOreGen;
+
+import org.bukkit.entity.Player;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Keeps generator levels resident only for online players plus a bounded set of recently seen offline players.
+ * Levels are read from storage during async pre-login and handed to the main thread on join.
+ * Offline entries are evicted after a grace period, oldest first, once their changes are flushed.
+ * Levels are striped by UUID, so region threads looking up different players rarely share a lock.
+ * Holders that are not players (islands) are pinned: loaded in the background and never evicted as offline.
+ */
+public class PlayerLevelCache {
+    private static final long PRELOAD_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int STRIPES = 16;
+
+    private final FenceOreGen plugin;
+    private final LevelPersistence persistence;
+    private final long gracePeriodMillis;
+    private final int maxOffline;
+
+    // Each stripe is guarded by its own monitor
+    private final UuidIntMap[] levels = new UuidIntMap[STRIPES];
+    // Insertion order = quit order, so iteration visits the longest-offline players first. Guarded by itself.
+    private final LinkedHashMap<UUID, Long> offlineSince = new LinkedHashMap<>();
+    // Written by the async pre-login thread, consumed on join
+    private final Map<UUID, Preloaded> preloaded = new ConcurrentHashMap<>();
+    // Non-player holders kept resident until unpinned
+    private final Set<UUID> pinned = ConcurrentHashMap.newKeySet();
+    // Background loads in progress, so repeated lookups start only one
+    private final Set<UUID> loading = ConcurrentHashMap.newKeySet();
+
+    private record Preloaded(int level, long loadedAt) {
+    }
+
+    public PlayerLevelCache(FenceOreGen plugin, LevelPersistence persistence, long gracePeriodSeconds, int maxOffline) {
+        this.plugin = plugin;
+        this.persistence = persistence;
+        this.gracePeriodMillis = TimeUnit.SECONDS.toMillis(Math.max(0, gracePeriodSeconds));
+        this.maxOffline = Math.max(0, maxOffline);
+        for (int i = 0; i < STRIPES; i++) {
+            levels[i] = new UuidIntMap(32);
+        }
+    }
+
+    public int get(UUID uuid) {
+        UuidIntMap stripe = stripe(uuid);
+        synchronized (stripe) {
+            return stripe.get(uuid, 1);
+        }
+    }
+
+    public boolean isLoaded(UUID uuid) {
+        UuidIntMap stripe = stripe(uuid);
+        synchronized (stripe) {
+            return stripe.containsKey(uuid);
+        }
+    }
+
+    /**
+     * Level of a holder that may not be resident. Starts a background load and returns {@code fallback} if it
+     * is not, so callers on the main or region thread never wait for storage.
+     */
+    public int getOrLoad(UUID uuid, int fallback) {
+        UuidIntMap stripe = stripe(uuid);
+        synchronized (stripe) {
+            if (stripe.containsKey(uuid)) return stripe.get(uuid, fallback);
+        }
+        loadAsync(uuid);
+        return fallback;
+    }
+
+    /**
+     * Keeps a non-player holder resident: loads it in the background once and exempts it from offline eviction.
+     */
+    public void pin(UUID uuid) {
+        if (!pinned.add(uuid)) return;
+        synchronized (offlineSince) {
+            offlineSince.remove(uuid);
+        }
+        loadAsync(uuid);
+    }
+
+    /**
+     * Lets an unpinned holder be evicted like an offline player, e.g. after its island was disbanded.
+     */
+    public void unpin(UUID uuid) {
+        if (!pinned.remove(uuid)) return;
+        synchronized (offlineSince) {
+            offlineSince.putIfAbsent(uuid, System.currentTimeMillis());
+        }
+    }
+
+    private void loadAsync(UUID uuid) {
+        if (!loading.add(uuid)) return;
+        plugin.getTaskScheduler().runAsync(() -> {
+            try {
+                loadNow(uuid);
+                // Owners of generators loaded for a spawn expire like any other offline player
+                if (!pinned.contains(uuid) && plugin.getServer().getPlayer(uuid) == null) {
+                    synchronized (offlineSince) {
+                        offlineSince.putIfAbsent(uuid, System.currentTimeMillis());
+                    }
+                }
+            } finally {
+                loading.remove(uuid);
+            }
+        });
+    }
+
+    public void set(UUID uuid, int level) {
+        UuidIntMap stripe = stripe(uuid);
+        synchronized (stripe) {
+            stripe.put(uuid, level);
+        }
+        persistence.markDirty(uuid, level);
+        if (!pinned.contains(uuid) && plugin.getServer().getPlayer(uuid) == null) {
+            synchronized (offlineSince) {
+                offlineSince.putIfAbsent(uuid, System.currentTimeMillis());
+            }
+        }
+    }
+
+    public int size() {
+        int total = 0;
+        for (UuidIntMap stripe : levels) {
+            synchronized (stripe) {
+                total += stripe.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Called from the async pre-login thread; blocking storage reads are fine here.
+     */
+    public void preload(UUID uuid) {
+        try {
+            int level = persistence.load(uuid).orElse(1);
+            preloaded.put(uuid, new Preloaded(level, System.currentTimeMillis()));
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Không thể đọc level của " + uuid, e);
+        }
+    }
+
+    public void onJoin(UUID uuid) {
+        synchronized (offlineSince) {
+            offlineSince.remove(uuid);
+        }
+        Preloaded loaded = preloaded.remove(uuid);
+        if (loaded == null) {
+            loadNow(uuid);
+            return;
+        }
+
+        UuidIntMap stripe = stripe(uuid);
+        synchronized (stripe) {
+            // A cached entry may hold changes that are not flushed yet, so it wins over the stored value
+            if (!stripe.containsKey(uuid)) {
+                stripe.put(uuid, loaded.level());
+            }
+        }
+    }
+
+    public void onQuit(UUID uuid) {
+        synchronized (offlineSince) {
+            offlineSince.remove(uuid);
+            offlineSince.put(uuid, System.currentTimeMillis());
+        }
+        persistence.flushAsync();
+    }
+
+    /**
+     * Blocking load, used for players that are already online when the plugin enables.
+     */
+    public void loadNow(UUID uuid) {
+        UuidIntMap stripe = stripe(uuid);
+        synchronized (stripe) {
+            if (stripe.containsKey(uuid)) return;
+        }
+
+        int level;
+        try {
+            level = persistence.load(uuid).orElse(1);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Không thể đọc level của " + uuid, e);
+            level = 1;
+        }
+        synchronized (stripe) {
+            if (!stripe.containsKey(uuid)) {
+                stripe.put(uuid, level);
+            }
+        }
+    }
+
+    /**
+     * Drops offline players past the grace period or beyond the offline limit. Entries with unsaved changes stay
+     * until the storage thread has written them.
+     */
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (offlineSince) {
+            Iterator<Map.Entry<UUID, Long>> it = offlineSince.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<UUID, Long> entry = it.next();
+                boolean expired = now - entry.getValue() >= gracePeriodMillis;
+                if (!expired && offlineSince.size() <= maxOffline) break;
+
+                UUID uuid = entry.getKey();
+                Player player = plugin.getServer().getPlayer(uuid);
+                if (player != null || pinned.contains(uuid)) {
+                    it.remove();
+                    continue;
+                }
+                if (persistence.isDirty(uuid)) continue;
+
+                UuidIntMap stripe = stripe(uuid);
+                synchronized (stripe) {
+                    stripe.remove(uuid);
+                }
+                it.remove();
+            }
+        }
+
+        preloaded.values().removeIf(loaded -> now - loaded.loadedAt() > PRELOAD_TTL_MILLIS);
+    }
+
+    private UuidIntMap stripe(UUID uuid) {
+        long h = uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits();
+        return levels[(int) (h ^ (h >>> 32)) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,122 @@
+package FenceOreGen;
+
+/**
+ * Growable ring buffer of pending spawns stored in parallel primitive arrays
+ * (packed position, due tick, spawn target index, level, generation). Used both for timing wheel slots and the
+ * ready queue.
+ * Not thread-safe.
+ */
+final class SpawnBuffer {
+    private long[] positions;
+    private long[] dueTicks;
+    private int[] targets;
+    private int[] levels;
+    private int[] generations;
+    private int head;
+    private int size;
+
+    SpawnBuffer(int capacity) {
+        int initial = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        positions = new long[initial];
+        dueTicks = new long[initial];
+        targets = new int[initial];
+        levels = new int[initial];
+        generations = new int[initial];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    void addLast(long position, long dueTick, int target, int level, int generation) {
+        ensureCapacity();
+        int i = (head + size) & (positions.length - 1);
+        set(i, position, dueTick, target, level, generation);
+        size++;
+    }
+
+    void addFirst(long position, long dueTick, int target, int level, int generation) {
+        ensureCapacity();
+        head = (head - 1) & (positions.length - 1);
+        set(head, position, dueTick, target, level, generation);
+        size++;
+    }
+
+    /**
+     * Index of the n-th element from the head, for use with the accessors below.
+     */
+    int slot(int n) {
+        return (head + n) & (positions.length - 1);
+    }
+
+    long position(int slot) {
+        return positions[slot];
+    }
+
+    long dueTick(int slot) {
+        return dueTicks[slot];
+    }
+
+    int target(int slot) {
+        return targets[slot];
+    }
+
+    int level(int slot) {
+        return levels[slot];
+    }
+
+    int generation(int slot) {
+        return generations[slot];
+    }
+
+    /**
+     * Drops the first {@code count} elements.
+     */
+    void removeFirst(int count) {
+        head = (head + count) & (positions.length - 1);
+        size -= count;
+        if (size == 0) head = 0;
+    }
+
+    private void set(int i, long position, long dueTick, int target, int level, int generation) {
+        positions[i] = position;
+        dueTicks[i] = dueTick;
+        targets[i] = target;
+        levels[i] = level;
+        generations[i] = generation;
+    }
+
+    private void ensureCapacity() {
+        if (size < positions.length) return;
+
+        int capacity = positions.length << 1;
+        long[] newPositions = new long[capacity];
+        long[] newDueTicks = new long[capacity];
+        int[] newTargets = new int[capacity];
+        int[] newLevels = new int[capacity];
+        int[] newGenerations = new int[capacity];
+        for (int n = 0; n < size; n++) {
+            int i = slot(n);
+            newPositions[n] = positions[i];
+            newDueTicks[n] = dueTicks[i];
+            newTargets[n] = targets[i];
+            newLevels[n] = levels[i];
+            newGenerations[n] = generations[i];
+        }
+        positions = newPositions;
+        dueTicks = newDueTicks;
+        targets = newTargets;
+        levels = newLevels;
+        generations = newGenerations;
+        head = 0;
+    }
+}
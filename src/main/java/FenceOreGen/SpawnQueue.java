@@ -0,0 +1,440 @@
+package FenceOreGen;
+
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Central tick-driven queue for generator spawns.
+ * Delayed spawns sit in a hashed timing wheel of primitive buffers (one slot per tick), so scheduling a spawn
+ * allocates nothing and needs no scheduler task. Due spawns move to a ready queue that is drained under a
+ * per-tick and per-chunk budget, so a large farm is spread over several ticks instead of bursting on one.
+ * Duplicate requests for a block that is already queued are dropped, and pending spawns can be cancelled
+ * in O(1) when their fence or water goes away. Every queued spawn carries a generation number that is also kept
+ * per position; an entry only runs while its generation is the current one, so an entry left behind by a cancel
+ * never fires for a later request on the same block.
+ * A spawn whose chunk has unloaded is never executed (that would load the chunk again); it is either dropped
+ * or parked per chunk and moved back to the ready queue on {@link #onChunkLoad(Chunk)}.
+ * On region-threaded servers (Folia) there is no single tick to drain from, so each spawn becomes a delayed
+ * task on the region that owns its chunk; coalescing and cancelling still work through concurrent sets.
+ */
+public class SpawnQueue {
+    private static final long BACKLOG_WARNING_INTERVAL_TICKS = 20L * 60;
+    private static final int MIN_WHEEL_SIZE = 64;
+
+    private final TaskScheduler scheduler;
+    private final GeneratorMetrics metrics;
+    private final Logger logger;
+    private final BooleanSupplier debugMode;
+    private final Spawner spawner;
+    private SpawnBuffer[] wheel = newWheel(MIN_WHEEL_SIZE);
+    private final SpawnBuffer ready = new SpawnBuffer(256);
+    private final SpawnBuffer deferred = new SpawnBuffer(64);
+    // Worlds referenced by index from the buffers
+    private final List<World> targets = new ArrayList<>();
+    // world -> packed position -> generation of its current spawn; removing a position cancels its spawn
+    private final Map<UUID, LongIntHashMap> queued = new HashMap<>();
+    // world -> chunk -> spawns executed this tick
+    private final Map<UUID, LongIntHashMap> chunkBudget = new HashMap<>();
+    // world -> chunk -> spawns waiting for that chunk to load again
+    private final Map<UUID, Map<Long, SpawnBuffer>> parked = new HashMap<>();
+    // Region-threaded mode only: world -> positions with a pending region task -> generation of that task
+    private final boolean regionized;
+    private final Map<UUID, Map<Long, Integer>> regionQueued = new ConcurrentHashMap<>();
+    private final AtomicInteger regionPending = new AtomicInteger();
+    // Source of generation numbers, 0 means "not queued"
+    private final AtomicInteger generations = new AtomicInteger();
+
+    private int maxPerTick;
+    private int maxPerChunkPerTick;
+    private int backlogWarning;
+    private boolean parkUnloaded;
+    private int maxParked;
+    private int delayedCount;
+    private int parkedCount;
+    private long currentTick;
+    private long lastBacklogWarning = -BACKLOG_WARNING_INTERVAL_TICKS;
+    private TaskScheduler.Task task;
+
+    /**
+     * Places the block of a spawn that came due; {@link GeneratorManager#spawnBlockAt(World, int, int, int, int)}
+     * outside tests.
+     */
+    interface Spawner {
+        void spawn(World world, int x, int y, int z, int level);
+    }
+
+    public SpawnQueue(FenceOreGen plugin, GeneratorManager generatorManager) {
+        this(plugin.getTaskScheduler(), plugin.getMetrics(), plugin.getLogger(), plugin::isDebugMode,
+                generatorManager::spawnBlockAt);
+    }
+
+    SpawnQueue(TaskScheduler scheduler, GeneratorMetrics metrics, Logger logger, BooleanSupplier debugMode,
+               Spawner spawner) {
+        this.scheduler = scheduler;
+        this.metrics = metrics;
+        this.logger = logger;
+        this.debugMode = debugMode;
+        this.spawner = spawner;
+        this.regionized = scheduler.isFolia();
+    }
+
+    /**
+     * @param parkUnloaded keep spawns for unloaded chunks until the chunk loads again instead of dropping them
+     * @param maxParked    parked spawns kept across all chunks; spawns beyond this are dropped
+     */
+    public void configure(int maxPerTick, int maxPerChunkPerTick, int backlogWarning, long maxDelayTicks,
+                          boolean parkUnloaded, int maxParked) {
+        this.maxPerTick = Math.max(1, maxPerTick);
+        this.maxPerChunkPerTick = Math.max(1, maxPerChunkPerTick);
+        this.backlogWarning = Math.max(0, backlogWarning);
+        this.parkUnloaded = parkUnloaded;
+        this.maxParked = Math.max(0, maxParked);
+        if (!parkUnloaded) {
+            dropParked();
+        }
+
+        // One slot per tick of delay means every entry is due the first time its slot comes round
+        int wheelSize = Integer.highestOneBit((int) Math.min(Math.max(MIN_WHEEL_SIZE, maxDelayTicks + 1), 1 << 16) - 1) << 1;
+        if (wheelSize != wheel.length) {
+            resizeWheel(wheelSize);
+        }
+    }
+
+    public void start() {
+        if (task == null && !regionized) {
+            task = scheduler.runGlobalTimer(this::tick, 1L, 1L);
+        }
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Queues a spawn to run after {@code delayTicks}. Returns false if the block already has a pending spawn.
+     */
+    public boolean enqueue(World world, int x, int y, int z, int level, long delayTicks) {
+        if (regionized) return enqueueRegion(world, x, y, z, level, delayTicks);
+
+        long position = BlockKeys.pack(x, y, z);
+        LongIntHashMap positions = queued.computeIfAbsent(world.getUID(), k -> new LongIntHashMap());
+        if (positions.containsKey(position)) return false;
+        int generation = nextGeneration();
+        positions.put(position, generation, 0);
+
+        int target = targetIndex(world);
+        if (delayTicks <= 0) {
+            ready.addLast(position, currentTick, target, level, generation);
+        } else {
+            long due = currentTick + delayTicks;
+            wheel[(int) (due & (wheel.length - 1))].addLast(position, due, target, level, generation);
+            delayedCount++;
+        }
+        return true;
+    }
+
+    /**
+     * Cancels the pending spawn at a block, if any. The entry itself is dropped when its slot comes round.
+     */
+    public void cancel(World world, int x, int y, int z) {
+        if (regionized) {
+            cancelRegion(regionQueued.get(world.getUID()), BlockKeys.pack(x, y, z));
+            return;
+        }
+        LongIntHashMap positions = queued.get(world.getUID());
+        if (positions != null) {
+            positions.remove(BlockKeys.pack(x, y, z), 0);
+        }
+    }
+
+    /**
+     * Cancels pending spawns on the six blocks touching {@code block}, e.g. when a fence or water source is removed.
+     */
+    public void cancelAround(Block block) {
+        int x = block.getX();
+        int y = block.getY();
+        int z = block.getZ();
+        if (regionized) {
+            Map<Long, Integer> positions = regionQueued.get(block.getWorld().getUID());
+            if (positions == null || positions.isEmpty()) return;
+            cancelRegion(positions, BlockKeys.pack(x + 1, y, z));
+            cancelRegion(positions, BlockKeys.pack(x - 1, y, z));
+            cancelRegion(positions, BlockKeys.pack(x, y, z + 1));
+            cancelRegion(positions, BlockKeys.pack(x, y, z - 1));
+            cancelRegion(positions, BlockKeys.pack(x, y + 1, z));
+            cancelRegion(positions, BlockKeys.pack(x, y - 1, z));
+            return;
+        }
+
+        LongIntHashMap positions = queued.get(block.getWorld().getUID());
+        if (positions == null || positions.isEmpty()) return;
+
+        positions.remove(BlockKeys.pack(x + 1, y, z), 0);
+        positions.remove(BlockKeys.pack(x - 1, y, z), 0);
+        positions.remove(BlockKeys.pack(x, y, z + 1), 0);
+        positions.remove(BlockKeys.pack(x, y, z - 1), 0);
+        positions.remove(BlockKeys.pack(x, y + 1, z), 0);
+        positions.remove(BlockKeys.pack(x, y - 1, z), 0);
+    }
+
+    /**
+     * Moves the spawns parked for a chunk back to the front of the ready queue.
+     */
+    public void onChunkLoad(Chunk chunk) {
+        if (regionized) return;
+
+        Map<Long, SpawnBuffer> chunks = parked.get(chunk.getWorld().getUID());
+        if (chunks == null) return;
+
+        SpawnBuffer buffer = chunks.remove(BlockKeys.chunkKey(chunk.getX(), chunk.getZ()));
+        if (buffer == null) return;
+        if (chunks.isEmpty()) parked.remove(chunk.getWorld().getUID());
+
+        parkedCount -= buffer.size();
+        for (int n = buffer.size() - 1; n >= 0; n--) {
+            int i = buffer.slot(n);
+            ready.addFirst(buffer.position(i), buffer.dueTick(i), buffer.target(i), buffer.level(i), buffer.generation(i));
+        }
+    }
+
+    /**
+     * Forgets everything queued for a world that is being unloaded.
+     */
+    public void unloadWorld(World world) {
+        if (regionized) {
+            Map<Long, Integer> positions = regionQueued.remove(world.getUID());
+            if (positions != null) regionPending.addAndGet(-positions.size());
+            return;
+        }
+        queued.remove(world.getUID());
+        chunkBudget.remove(world.getUID());
+        Map<Long, SpawnBuffer> chunks = parked.remove(world.getUID());
+        if (chunks != null) {
+            chunks.values().forEach(buffer -> parkedCount -= buffer.size());
+        }
+    }
+
+    public int getBacklog() {
+        if (regionized) return regionPending.get();
+        return delayedCount + ready.size();
+    }
+
+    public int getParkedCount() {
+        return parkedCount;
+    }
+
+    public int getReadyCount() {
+        return ready.size();
+    }
+
+    private boolean enqueueRegion(World world, int x, int y, int z, int level, long delayTicks) {
+        long position = BlockKeys.pack(x, y, z);
+        Map<Long, Integer> positions = regionQueued.computeIfAbsent(world.getUID(), k -> new ConcurrentHashMap<>());
+        int generation = nextGeneration();
+        if (positions.putIfAbsent(position, generation) != null) return false;
+        regionPending.incrementAndGet();
+
+        scheduler.runAtLater(world, x >> 4, z >> 4, () -> {
+            if (!positions.remove(position, generation)) return; // cancelled, or re-queued after a cancel
+            regionPending.decrementAndGet();
+            if (!world.isChunkLoaded(x >> 4, z >> 4)) {
+                metrics.recordUnloaded(false);
+                return;
+            }
+            spawner.spawn(world, x, y, z, level);
+        }, delayTicks);
+        return true;
+    }
+
+    private void cancelRegion(Map<Long, Integer> positions, long position) {
+        if (positions != null && positions.remove(position) != null) {
+            regionPending.decrementAndGet();
+        }
+    }
+
+    private int nextGeneration() {
+        int generation = generations.incrementAndGet();
+        return generation != 0 ? generation : generations.incrementAndGet();
+    }
+
+    /**
+     * Whether a buffered entry is still the spawn queued for its position, i.e. it was not cancelled or replaced.
+     */
+    private boolean isCurrent(int target, long position, int generation) {
+        LongIntHashMap positions = queued.get(targets.get(target).getUID());
+        return positions != null && positions.get(position, 0) == generation;
+    }
+
+    /**
+     * Advances one tick: moves due entries out of the wheel and drains the ready queue. Driven by the global timer
+     * from {@link #start()}; package-private so tests can step it.
+     */
+    void tick() {
+        currentTick++;
+
+        SpawnBuffer bucket = wheel[(int) (currentTick & (wheel.length - 1))];
+        int count = bucket.size();
+        for (int n = 0; n < count; n++) {
+            int i = bucket.slot(0);
+            long position = bucket.position(i);
+            long due = bucket.dueTick(i);
+            int target = bucket.target(i);
+            int level = bucket.level(i);
+            int generation = bucket.generation(i);
+            bucket.removeFirst(1);
+
+            if (!isCurrent(target, position, generation)) {
+                delayedCount--; // cancelled while waiting
+            } else if (due <= currentTick) {
+                ready.addLast(position, due, target, level, generation);
+                delayedCount--;
+            } else {
+                bucket.addLast(position, due, target, level, generation);
+            }
+        }
+        if (ready.isEmpty()) {
+            // Nothing references the target table any more, so drop stale world references
+            if (delayedCount == 0 && parkedCount == 0 && !targets.isEmpty()) targets.clear();
+            return;
+        }
+
+        long start = System.nanoTime();
+        drainReady();
+        metrics.recordSpawnTick(System.nanoTime() - start);
+        reportBacklog();
+    }
+
+    private void drainReady() {
+        chunkBudget.values().forEach(LongIntHashMap::clear);
+        int executed = 0;
+        int scanned = 0;
+        int scanLimit = maxPerTick * 4;
+
+        while (executed < maxPerTick && scanned < scanLimit && !ready.isEmpty()) {
+            int i = ready.slot(0);
+            long position = ready.position(i);
+            long due = ready.dueTick(i);
+            int targetIndex = ready.target(i);
+            int level = ready.level(i);
+            int generation = ready.generation(i);
+            ready.removeFirst(1);
+            scanned++;
+
+            World world = targets.get(targetIndex);
+            UUID worldId = world.getUID();
+            LongIntHashMap positions = queued.get(worldId);
+            // Cancelled, or cancelled and queued again: only the newest entry for a position runs
+            if (positions == null || positions.get(position, 0) != generation) continue;
+
+            // Checked before touching any block so an unloaded chunk is never loaded just for a spawn
+            long chunkKey = BlockKeys.chunkKeyOf(position);
+            if (!world.isChunkLoaded(BlockKeys.chunkX(chunkKey), BlockKeys.chunkZ(chunkKey))) {
+                park(worldId, chunkKey, position, due, targetIndex, level, generation);
+                continue;
+            }
+
+            LongIntHashMap counts = chunkBudget.computeIfAbsent(worldId, k -> new LongIntHashMap());
+            if (counts.addTo(chunkKey, 1) > maxPerChunkPerTick) {
+                deferred.addLast(position, due, targetIndex, level, generation);
+                continue;
+            }
+
+            positions.remove(position, 0);
+            spawner.spawn(world, BlockKeys.x(position), BlockKeys.y(position), BlockKeys.z(position), level);
+            executed++;
+        }
+
+        // Keep deferred spawns at the front, in their original order, so they go first next tick
+        for (int n = deferred.size() - 1; n >= 0; n--) {
+            int i = deferred.slot(n);
+            ready.addFirst(deferred.position(i), deferred.dueTick(i), deferred.target(i), deferred.level(i),
+                    deferred.generation(i));
+        }
+        deferred.clear();
+    }
+
+    private void park(UUID worldId, long chunkKey, long position, long due, int target, int level, int generation) {
+        if (!parkUnloaded || parkedCount >= maxParked) {
+            queued.get(worldId).remove(position, 0);
+            metrics.recordUnloaded(false);
+            return;
+        }
+        parked.computeIfAbsent(worldId, k -> new HashMap<>())
+                .computeIfAbsent(chunkKey, k -> new SpawnBuffer(4))
+                .addLast(position, due, target, level, generation);
+        parkedCount++;
+        metrics.recordUnloaded(true);
+    }
+
+    private void dropParked() {
+        for (Map.Entry<UUID, Map<Long, SpawnBuffer>> world : parked.entrySet()) {
+            LongIntHashMap positions = queued.get(world.getKey());
+            for (SpawnBuffer buffer : world.getValue().values()) {
+                for (int n = 0; n < buffer.size() && positions != null; n++) {
+                    int i = buffer.slot(n);
+                    // A newer spawn for the same block may have been queued since this one was parked
+                    if (positions.get(buffer.position(i), 0) == buffer.generation(i)) {
+                        positions.remove(buffer.position(i), 0);
+                    }
+                }
+            }
+        }
+        parked.clear();
+        parkedCount = 0;
+    }
+
+    private int targetIndex(World world) {
+        for (int i = 0, size = targets.size(); i < size; i++) {
+            if (targets.get(i) == world) return i;
+        }
+        targets.add(world);
+        return targets.size() - 1;
+    }
+
+    private void resizeWheel(int size) {
+        SpawnBuffer[] old = wheel;
+        wheel = newWheel(size);
+        for (SpawnBuffer bucket : old) {
+            for (int n = 0; n < bucket.size(); n++) {
+                int i = bucket.slot(n);
+                long due = bucket.dueTick(i);
+                wheel[(int) (due & (size - 1))].addLast(bucket.position(i), due, bucket.target(i), bucket.level(i),
+                        bucket.generation(i));
+            }
+        }
+    }
+
+    private static SpawnBuffer[] newWheel(int size) {
+        SpawnBuffer[] slots = new SpawnBuffer[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new SpawnBuffer(4);
+        }
+        return slots;
+    }
+
+    private void reportBacklog() {
+        int backlog = getBacklog();
+        if (backlogWarning > 0 && backlog >= backlogWarning
+                && currentTick - lastBacklogWarning >= BACKLOG_WARNING_INTERVAL_TICKS) {
+            lastBacklogWarning = currentTick;
+            logger.warning("[FenceGen] Spawn queue backlog is " + backlog + " (" + ready.size()
+                    + " ready). Consider raising spawn-queue.max-per-tick.");
+        } else if (debugMode.getAsBoolean() && !ready.isEmpty() && currentTick % 20 == 0) {
+            logger.info("[DEBUG] Spawn queue backlog: " + backlog + " (" + ready.size() + " ready)");
+        }
+    }
+}
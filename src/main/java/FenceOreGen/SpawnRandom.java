@@ -0,0 +1,55 @@
+package FenceOreGen;
+
+import org.bukkit.World;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Source of the uniform values that pick generated blocks (see {@link BlockSampler#sampleIndex(double)}).
+ * Selected with {@code rng.mode} in config.yml.
+ */
+public interface SpawnRandom {
+
+    /**
+     * @param position packed block position of the spawn, see {@link BlockKeys#pack(int, int, int)}
+     * @return a value in [0, 1)
+     */
+    double next(World world, long position);
+
+    /**
+     * Per-thread generator with no shared state, for production.
+     */
+    static SpawnRandom fast() {
+        return (world, position) -> ThreadLocalRandom.current().nextDouble();
+    }
+
+    /**
+     * Reproducible values from the world seed, the block position and the world time of the spawn, so the same
+     * spawn on the same world always yields the same block.
+     */
+    static SpawnRandom deterministic() {
+        return (world, position) -> uniform(world.getSeed(), position, world.getFullTime());
+    }
+
+    static SpawnRandom fromConfig(String mode) {
+        return "deterministic".equalsIgnoreCase(mode) ? deterministic() : fast();
+    }
+
+    /**
+     * Stateless SplitMix64 hash of (seed, position, counter) mapped to [0, 1). Usable from tests and benchmarks
+     * with any counter.
+     */
+    static double uniform(long seed, long position, long counter) {
+        long h = mix64(seed ^ 0x9E3779B97F4A7C15L);
+        h = mix64(h ^ position);
+        h = mix64(h ^ counter);
+        return (h >>> 11) * 0x1.0p-53;
+    }
+
+    static long mix64(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,122 @@
+package FenceOreGen;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+
+/**
+ * Embedded SQLite backend using the driver bundled with the server.
+ * Rows are keyed by UUID (primary key index) and written with batched upserts in one transaction.
+ */
+public class SqliteLevelStorage implements LevelStorage {
+    private static final String CREATE_TABLE =
+            "CREATE TABLE IF NOT EXISTS player_levels (uuid CHAR(36) NOT NULL PRIMARY KEY, level INTEGER NOT NULL)";
+    private static final String SELECT_ONE = "SELECT level FROM player_levels WHERE uuid = ?";
+    private static final String SELECT_ALL = "SELECT uuid, level FROM player_levels";
+    private static final String UPSERT =
+            "INSERT INTO player_levels (uuid, level) VALUES (?, ?) ON CONFLICT(uuid) DO UPDATE SET level = excluded.level";
+
+    private final Connection connection;
+    private final PreparedStatement selectOne;
+    private final PreparedStatement upsert;
+
+    public SqliteLevelStorage(File file) throws IOException {
+        try {
+            Class.forName("org.sqlite.JDBC");
+            connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL");
+                statement.execute(CREATE_TABLE);
+            }
+            selectOne = connection.prepareStatement(SELECT_ONE);
+            upsert = connection.prepareStatement(UPSERT);
+        } catch (ClassNotFoundException | SQLException e) {
+            throw new IOException("Không thể mở cơ sở dữ liệu SQLite " + file.getName(), e);
+        }
+    }
+
+    @Override
+    public synchronized OptionalInt load(UUID uuid) throws IOException {
+        try {
+            selectOne.setString(1, uuid.toString());
+            try (ResultSet rs = selectOne.executeQuery()) {
+                return rs.next() ? OptionalInt.of(rs.getInt(1)) : OptionalInt.empty();
+            }
+        } catch (SQLException e) {
+            throw new IOException("Không thể đọc level của " + uuid, e);
+        }
+    }
+
+    @Override
+    public synchronized Map<UUID, Integer> loadAll() throws IOException {
+        Map<UUID, Integer> levels = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(SELECT_ALL)) {
+            while (rs.next()) {
+                try {
+                    levels.put(UUID.fromString(rs.getString(1)), rs.getInt(2));
+                } catch (IllegalArgumentException ignored) {
+                    // Skip rows that were edited by hand
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Không thể đọc bảng player_levels", e);
+        }
+        return levels;
+    }
+
+    @Override
+    public synchronized void saveAll(Map<UUID, Integer> levels) throws IOException {
+        if (levels.isEmpty()) return;
+        try {
+            connection.setAutoCommit(false);
+            try {
+                for (Map.Entry<UUID, Integer> entry : levels.entrySet()) {
+                    upsert.setString(1, entry.getKey().toString());
+                    upsert.setInt(2, entry.getValue());
+                    upsert.addBatch();
+                }
+                upsert.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Không thể lưu " + levels.size() + " level vào SQLite", e);
+        }
+    }
+
+    @Override
+    public synchronized boolean isEmpty() throws IOException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT 1 FROM player_levels LIMIT 1")) {
+            return !rs.next();
+        } catch (SQLException e) {
+            throw new IOException("Không thể đọc bảng player_levels", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            selectOne.close();
+            upsert.close();
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException("Không thể đóng cơ sở dữ liệu SQLite", e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package FenceOreGen;
+
+import com.bgsoftware.superiorskyblock.api.SuperiorSkyblockAPI;
+import com.bgsoftware.superiorskyblock.api.events.IslandCreateEvent;
+import com.bgsoftware.superiorskyblock.api.events.IslandDisbandEvent;
+import com.bgsoftware.superiorskyblock.api.events.IslandJoinEvent;
+import com.bgsoftware.superiorskyblock.api.events.IslandKickEvent;
+import com.bgsoftware.superiorskyblock.api.events.IslandQuitEvent;
+import com.bgsoftware.superiorskyblock.api.events.IslandTransferEvent;
+import com.bgsoftware.superiorskyblock.api.island.Island;
+import com.bgsoftware.superiorskyblock.api.wrappers.SuperiorPlayer;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+import java.util.UUID;
+
+/**
+ * The only class touching the SuperiorSkyblock2 API, so the plugin loads without it.
+ * Only created by {@link IslandLevels} once the plugin is known to be enabled.
+ */
+final class SuperiorSkyblockHook implements Listener {
+    private final IslandLevels islandLevels;
+
+    SuperiorSkyblockHook(IslandLevels islandLevels) {
+        this.islandLevels = islandLevels;
+    }
+
+    UUID getIslandAt(Location location) {
+        Island island = SuperiorSkyblockAPI.getIslandAt(location);
+        return island != null ? island.getUniqueId() : null;
+    }
+
+    UUID getIslandOf(Player player) {
+        SuperiorPlayer superiorPlayer = SuperiorSkyblockAPI.getPlayer(player);
+        Island island = superiorPlayer != null ? superiorPlayer.getIsland() : null;
+        return island != null ? island.getUniqueId() : null;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onIslandCreate(IslandCreateEvent event) {
+        islandLevels.invalidate();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onIslandDisband(IslandDisbandEvent event) {
+        islandLevels.invalidate();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onIslandTransfer(IslandTransferEvent event) {
+        islandLevels.invalidate();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onIslandJoin(IslandJoinEvent event) {
+        islandLevels.onMembershipChanged(event.getPlayer().getUniqueId(), event.getIsland().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onIslandQuit(IslandQuitEvent event) {
+        islandLevels.onMembershipChanged(event.getPlayer().getUniqueId(), null);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onIslandKick(IslandKickEvent event) {
+        islandLevels.onMembershipChanged(event.getTarget().getUniqueId(), null);
+    }
+}
@@ -0,0 +1,168 @@
+package FenceOreGen;
+
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.Consumer;
+
+/**
+ * Runs plugin tasks on the right thread for the server flavour.
+ * On Bukkit/Paper every sync task goes to the main thread. On Folia (region-threaded servers) work on blocks
+ * goes to the region scheduler that owns the chunk, player work to the entity scheduler and timers to the
+ * global region scheduler. The Folia API is reached through reflection so the plugin still builds against
+ * the Spigot API.
+ */
+public final class TaskScheduler {
+    private final Plugin plugin;
+    private final boolean folia;
+
+    private Method getGlobalScheduler;
+    private Method getRegionScheduler;
+    private Method getAsyncScheduler;
+    private Method getEntityScheduler;
+    private Method globalExecute;
+    private Method globalRunAtFixedRate;
+    private Method regionExecute;
+    private Method regionRunDelayed;
+    private Method asyncRunNow;
+    private Method entityExecute;
+    private Method cancelTask;
+
+    /**
+     * Handle for a repeating task.
+     */
+    public interface Task {
+        void cancel();
+    }
+
+    public TaskScheduler(Plugin plugin) {
+        this.plugin = plugin;
+        this.folia = detectFolia();
+        if (folia) {
+            resolveFoliaMethods();
+        }
+    }
+
+    public static boolean detectFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    public boolean isFolia() {
+        return folia;
+    }
+
+    /**
+     * Runs a task that is not tied to any region (global region on Folia, main thread otherwise).
+     */
+    public void runGlobal(Runnable task) {
+        if (!folia) {
+            plugin.getServer().getScheduler().runTask(plugin, task);
+            return;
+        }
+        invoke(globalExecute, invoke(getGlobalScheduler, plugin.getServer()), plugin, task);
+    }
+
+    public Task runGlobalTimer(Runnable task, long delayTicks, long periodTicks) {
+        if (!folia) {
+            BukkitTask bukkitTask = plugin.getServer().getScheduler().runTaskTimer(plugin, task, delayTicks, periodTicks);
+            return bukkitTask::cancel;
+        }
+        Consumer<Object> body = scheduled -> task.run();
+        Object scheduled = invoke(globalRunAtFixedRate, invoke(getGlobalScheduler, plugin.getServer()), plugin, body,
+                Math.max(1, delayTicks), Math.max(1, periodTicks));
+        return () -> invoke(cancelTask, scheduled);
+    }
+
+    /**
+     * Runs a task on the thread that owns the given chunk.
+     */
+    public void runAt(World world, int chunkX, int chunkZ, Runnable task) {
+        if (!folia) {
+            plugin.getServer().getScheduler().runTask(plugin, task);
+            return;
+        }
+        invoke(regionExecute, invoke(getRegionScheduler, plugin.getServer()), plugin, world, chunkX, chunkZ, task);
+    }
+
+    public void runAtLater(World world, int chunkX, int chunkZ, Runnable task, long delayTicks) {
+        if (!folia) {
+            plugin.getServer().getScheduler().runTaskLater(plugin, task, delayTicks);
+            return;
+        }
+        if (delayTicks <= 0) {
+            runAt(world, chunkX, chunkZ, task);
+            return;
+        }
+        Consumer<Object> body = scheduled -> task.run();
+        invoke(regionRunDelayed, invoke(getRegionScheduler, plugin.getServer()), plugin, world, chunkX, chunkZ, body,
+                delayTicks);
+    }
+
+    /**
+     * Runs a task on the thread that owns the entity. Dropped if the entity is removed first.
+     */
+    public void runFor(Entity entity, Runnable task) {
+        if (!folia) {
+            plugin.getServer().getScheduler().runTask(plugin, task);
+            return;
+        }
+        invoke(entityExecute, invoke(getEntityScheduler, entity), plugin, task, null, 1L);
+    }
+
+    public void runAsync(Runnable task) {
+        if (!folia) {
+            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, task);
+            return;
+        }
+        Consumer<Object> body = scheduled -> task.run();
+        invoke(asyncRunNow, invoke(getAsyncScheduler, plugin.getServer()), plugin, body);
+    }
+
+    private void resolveFoliaMethods() {
+        try {
+            String base = "io.papermc.paper.threadedregions.scheduler.";
+            Class<?> global = Class.forName(base + "GlobalRegionScheduler");
+            Class<?> region = Class.forName(base + "RegionScheduler");
+            Class<?> async = Class.forName(base + "AsyncScheduler");
+            Class<?> entity = Class.forName(base + "EntityScheduler");
+            Class<?> scheduledTask = Class.forName(base + "ScheduledTask");
+
+            getGlobalScheduler = Server.class.getMethod("getGlobalRegionScheduler");
+            getRegionScheduler = Server.class.getMethod("getRegionScheduler");
+            getAsyncScheduler = Server.class.getMethod("getAsyncScheduler");
+            getEntityScheduler = Entity.class.getMethod("getScheduler");
+            globalExecute = global.getMethod("execute", Plugin.class, Runnable.class);
+            globalRunAtFixedRate = global.getMethod("runAtFixedRate", Plugin.class, Consumer.class, long.class, long.class);
+            regionExecute = region.getMethod("execute", Plugin.class, World.class, int.class, int.class, Runnable.class);
+            regionRunDelayed = region.getMethod("runDelayed", Plugin.class, World.class, int.class, int.class,
+                    Consumer.class, long.class);
+            asyncRunNow = async.getMethod("runNow", Plugin.class, Consumer.class);
+            entityExecute = entity.getMethod("execute", Plugin.class, Runnable.class, Runnable.class, long.class);
+            cancelTask = scheduledTask.getMethod("cancel");
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Folia scheduler API not found", e);
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException(cause);
+        }
+    }
+}
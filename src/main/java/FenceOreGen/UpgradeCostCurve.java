@@ -0,0 +1,84 @@
+package FenceOreGen;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.logging.Logger;
+
+/**
+ * Compiles the {@code upgrade-costs} section into a price table for one generator-levels table.
+ * The table is indexed by the level being bought (levels 0 and 1 are free), so quoting a price is an array load.
+ * Keys under {@code upgrade-costs.worlds.<key>} override the shared keys for that table.
+ */
+public final class UpgradeCostCurve {
+    private static final double[] FREE = new double[2];
+
+    private UpgradeCostCurve() {
+    }
+
+    /**
+     * @param section      upgrade-costs section, may be null
+     * @param tableKey     generator-levels key the table was compiled from
+     * @param maxLevel     highest level of the table
+     * @param defaultBase  settings.upgrade-cost, used when the section has no base
+     * @param defaultRatio settings.upgrade-cost-multiplier, used when the section has no multiplier
+     */
+    public static double[] compile(ConfigurationSection section, String tableKey, int maxLevel,
+                                   double defaultBase, double defaultRatio, Logger logger) {
+        if (maxLevel < 2) return FREE;
+
+        ConfigurationSection world = section != null ? section.getConfigurationSection("worlds." + tableKey) : null;
+        String curve = getString(world, section, "curve", "geometric");
+        double base = Math.max(0, getDouble(world, section, "base", defaultBase));
+        double multiplier = Math.max(1, getDouble(world, section, "multiplier", defaultRatio));
+        double exponent = Math.max(0, getDouble(world, section, "exponent", 2.0));
+
+        boolean polynomial = "polynomial".equalsIgnoreCase(curve);
+        if (!polynomial && !"geometric".equalsIgnoreCase(curve)) {
+            logger.warning("[FenceGen] Unknown upgrade cost curve '" + curve + "' for " + tableKey + ", using geometric");
+        }
+
+        double[] costs = new double[maxLevel + 1];
+        for (int level = 2; level <= maxLevel; level++) {
+            // Level 2 always costs the base price
+            costs[level] = polynomial
+                    ? base * Math.pow(level - 1, exponent)
+                    : base * Math.pow(multiplier, level - 2);
+        }
+
+        // Fixed prices: shared ones first, then the table's own
+        applyOverrides(section, costs, tableKey, logger);
+        applyOverrides(world, costs, tableKey, logger);
+        return costs;
+    }
+
+    private static void applyOverrides(ConfigurationSection section, double[] costs, String tableKey, Logger logger) {
+        ConfigurationSection levels = section != null ? section.getConfigurationSection("levels") : null;
+        if (levels == null) return;
+
+        for (String levelKey : levels.getKeys(false)) {
+            if (!levelKey.matches("\\d+")) {
+                logger.warning("[FenceGen] Skipping non-numeric upgrade cost level '" + levelKey + "' for " + tableKey);
+                continue;
+            }
+            int level = Integer.parseInt(levelKey);
+            if (level < 2 || level >= costs.length) continue;
+            if (!levels.isDouble(levelKey) && !levels.isInt(levelKey) && !levels.isLong(levelKey)) {
+                logger.warning("[FenceGen] Invalid upgrade cost for level " + level + ": " + levels.get(levelKey));
+                continue;
+            }
+            costs[level] = Math.max(0, levels.getDouble(levelKey));
+        }
+    }
+
+    private static String getString(ConfigurationSection world, ConfigurationSection shared, String path, String def) {
+        if (world != null && world.contains(path)) return world.getString(path, def);
+        if (shared != null && shared.contains(path)) return shared.getString(path, def);
+        return def;
+    }
+
+    private static double getDouble(ConfigurationSection world, ConfigurationSection shared, String path, double def) {
+        if (world != null && world.contains(path)) return world.getDouble(path, def);
+        if (shared != null && shared.contains(path)) return shared.getDouble(path, def);
+        return def;
+    }
+}
@@ -0,0 +1,165 @@
+package FenceOreGen;
+
+import net.milkbowl.vault.economy.Economy;
+import net.milkbowl.vault.economy.EconomyResponse;
+import org.bukkit.OfflinePlayer;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Paid generator upgrades without economy calls on the main thread.
+ * The balance check and withdrawal run on one economy thread (economy plugins backed by a database can take
+ * milliseconds per call, and a single thread keeps calls to them in order). The level change is then applied on
+ * the global thread, and refunded if the level changed while the money was being taken. Once money is taken the
+ * upgrade always completes: if the plugin is disabling and the global thread cannot take the task any more, the
+ * level change (or refund) runs on the economy thread or in {@link #shutdown()} instead.
+ * A level holder (player, or island in island mode) can have only one upgrade in flight at a time.
+ */
+public class UpgradeService {
+    public enum Result {
+        UPGRADED,
+        NOT_ENOUGH_MONEY,
+        TRANSACTION_FAILED,
+        // Level changed (e.g. by setlevel) while the withdrawal was running; the money was refunded
+        CONFLICT
+    }
+
+    private final FenceOreGen plugin;
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+    // Paid upgrades handed to the global thread that have not run yet
+    private final Set<Runnable> pendingApply = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FenceOreGen-Economy");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UpgradeService(FenceOreGen plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Charges {@code player} and raises {@code holder} from {@code fromLevel} to the next level.
+     * {@code callback} receives the result on the global thread.
+     *
+     * @param holder whose level is upgraded, see {@link IslandLevels#getHolder(org.bukkit.entity.Player)}
+     * @return false if the holder already has an upgrade in flight
+     */
+    public boolean upgrade(OfflinePlayer player, UUID holder, int fromLevel, double cost, Consumer<Result> callback) {
+        if (!inFlight.add(holder)) return false;
+
+        Economy economy = plugin.getEconomy();
+        try {
+            executor.execute(() -> charge(player, holder, fromLevel, cost, economy, callback));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(holder);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Waits for transactions that already started and applies paid upgrades the global thread never ran.
+     * Called on disable before the level storage is flushed, so the new levels are saved.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("[FenceGen] Economy thread did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Runnable task : pendingApply.toArray(new Runnable[0])) {
+            runPending(task);
+        }
+    }
+
+    private void charge(OfflinePlayer player, UUID holder, int fromLevel, double cost, Economy economy,
+                        Consumer<Result> callback) {
+        Result failure = null;
+        try {
+            if (!economy.has(player, cost)) {
+                failure = Result.NOT_ENOUGH_MONEY;
+            } else {
+                EconomyResponse response = economy.withdrawPlayer(player, cost);
+                if (!response.transactionSuccess()) {
+                    plugin.getLogger().warning("[FenceGen] Upgrade withdrawal failed for " + player.getUniqueId()
+                            + ": " + response.errorMessage);
+                    failure = Result.TRANSACTION_FAILED;
+                }
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "[FenceGen] Economy error during upgrade of " + player.getUniqueId(), e);
+            failure = Result.TRANSACTION_FAILED;
+        }
+
+        Result result = failure;
+        Runnable task = result != null
+                ? () -> finish(holder, result, callback)
+                : () -> apply(player, holder, fromLevel, cost, economy, callback);
+        pendingApply.add(task);
+        if (!plugin.isEnabled()) {
+            // Disabling: the scheduler no longer runs plugin tasks
+            runPending(task);
+            return;
+        }
+        try {
+            plugin.getTaskScheduler().runGlobal(() -> runPending(task));
+        } catch (RuntimeException e) {
+            runPending(task);
+        }
+    }
+
+    // Runs a handed-off task exactly once, whichever thread gets to it first
+    private void runPending(Runnable task) {
+        if (pendingApply.remove(task)) {
+            task.run();
+        }
+    }
+
+    private void apply(OfflinePlayer player, UUID holder, int fromLevel, double cost, Economy economy,
+                       Consumer<Result> callback) {
+        if (plugin.getPlayerLevel(holder) != fromLevel) {
+            refund(player, cost, economy);
+            finish(holder, Result.CONFLICT, callback);
+            return;
+        }
+
+        plugin.setPlayerLevel(holder, fromLevel + 1); // Written to storage on the next flush
+        finish(holder, Result.UPGRADED, callback);
+    }
+
+    private void refund(OfflinePlayer player, double cost, Economy economy) {
+        Runnable deposit = () -> {
+            try {
+                economy.depositPlayer(player, cost);
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.SEVERE, "[FenceGen] Could not refund " + cost + " to " + player.getUniqueId(), e);
+            }
+        };
+        try {
+            executor.execute(deposit);
+        } catch (RejectedExecutionException e) {
+            // Plugin is disabling, refund on this thread rather than lose the money
+            deposit.run();
+        }
+    }
+
+    private void finish(UUID uuid, Result result, Consumer<Result> callback) {
+        inFlight.remove(uuid);
+        // Nobody to notify once the plugin is disabling
+        if (plugin.isEnabled()) {
+            callback.accept(result);
+        }
+    }
+}
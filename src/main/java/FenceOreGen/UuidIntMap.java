@@ -0,0 +1,106 @@
+package FenceOreGen;
+
+import java.util.UUID;
+
+/**
+ * Open-addressing map from UUID to int, keyed by the two {@code long} halves of the UUID.
+ * Stores no per-entry objects, so lookups never box and an entry costs 20 bytes of array space
+ * (plus load-factor slack) instead of a HashMap node, a UUID and an Integer. Not thread-safe.
+ */
+public final class UuidIntMap extends OpenAddressingTable {
+    private long[] most;
+    private long[] least;
+    private int[] values;
+
+    public UuidIntMap() {
+        this(16);
+    }
+
+    public UuidIntMap(int expected) {
+        super(0.6f);
+        allocate(capacityFor(expected));
+    }
+
+    @Override
+    void allocate(int capacity) {
+        super.allocate(capacity);
+        most = new long[capacity];
+        least = new long[capacity];
+        values = new int[capacity];
+    }
+
+    private static int mix(long msb, long lsb) {
+        long h = (msb ^ Long.rotateLeft(lsb, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 29));
+    }
+
+    private int indexOf(long msb, long lsb) {
+        int i = mix(msb, lsb) & mask;
+        while (used[i]) {
+            if (most[i] == msb && least[i] == lsb) return i;
+            i = next(i);
+        }
+        return -1;
+    }
+
+    public boolean containsKey(UUID uuid) {
+        return indexOf(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()) >= 0;
+    }
+
+    public int get(UUID uuid, int defaultValue) {
+        int i = indexOf(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        return i >= 0 ? values[i] : defaultValue;
+    }
+
+    public void put(UUID uuid, int value) {
+        put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), value);
+    }
+
+    private void put(long msb, long lsb, int value) {
+        int i = mix(msb, lsb) & mask;
+        while (used[i]) {
+            if (most[i] == msb && least[i] == lsb) {
+                values[i] = value;
+                return;
+            }
+            i = next(i);
+        }
+        used[i] = true;
+        most[i] = msb;
+        least[i] = lsb;
+        values[i] = value;
+        inserted();
+    }
+
+    public boolean remove(UUID uuid) {
+        int i = indexOf(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        if (i < 0) return false;
+        removeAt(i);
+        return true;
+    }
+
+    @Override
+    int homeOf(int slot) {
+        return mix(most[slot], least[slot]) & mask;
+    }
+
+    @Override
+    void moveSlot(int from, int to) {
+        most[to] = most[from];
+        least[to] = least[from];
+        values[to] = values[from];
+    }
+
+    @Override
+    void rehash(int capacity) {
+        long[] oldMost = most;
+        long[] oldLeast = least;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) put(oldMost[i], oldLeast[i], oldValues[i]);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package FenceOreGen;
 
-import org.bukkit.*;
+import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Player;
@@ -8,12 +9,17 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockFromToEvent;
 
+import java.util.UUID;
+
 
 public class WaterInteractionListener implements Listener {
 
     private final FenceOreGen plugin;
     private final GeneratorManager generatorManager;
-    private final int maxPlayerDistance;
+    private final GeneratorRegistry generatorRegistry;
+    private final GeneratorStore generatorStore;
+    private final PlayerGrid playerGrid;
+    private final GeneratorMetrics metrics;
     private static final BlockFace[] HORIZONTAL_FACES = {
             BlockFace.NORTH, BlockFace.SOUTH, BlockFace.EAST, BlockFace.WEST
     };
@@ -21,64 +27,76 @@ public class WaterInteractionListener implements Listener {
     public WaterInteractionListener(FenceOreGen plugin) {
         this.plugin = plugin;
         this.generatorManager = plugin.getGeneratorManager();
-        this.maxPlayerDistance = plugin.getConfig().getInt("max-player-distance", 5); // dùng thực sự
+        this.generatorRegistry = plugin.getGeneratorRegistry();
+        this.generatorStore = plugin.getGeneratorStore();
+        this.playerGrid = plugin.getPlayerGrid();
+        this.metrics = plugin.getMetrics();
     }
 
     @EventHandler
     public void onWaterFlow(BlockFromToEvent event) {
-        Block from = event.getBlock();
+        long start = System.nanoTime();
+        boolean accepted = handleFlow(event);
+        metrics.recordFlow(accepted, System.nanoTime() - start);
+    }
+
+    // Trả về true nếu dòng chảy tạo ra một lần spawn
+    private boolean handleFlow(BlockFromToEvent event) {
         Block to = event.getToBlock();
+        // Bỏ qua ngay các dòng chảy không nằm cạnh hàng rào đã biết
+        if (!generatorRegistry.isCandidate(to)) return false;
 
-        if (from.getType() != Material.WATER) return;
-        if (to.getType() != Material.AIR) return;
+        Block from = event.getBlock();
+        if (from.getType() != Material.WATER) return false;
+        if (to.getType() != Material.AIR) return false;
 
         // Nước chảy ngang
         for (BlockFace face : HORIZONTAL_FACES) {
             Block neighbor = to.getRelative(face);
-            if (neighbor.getType().name().contains("FENCE")) {
+            if (MaterialFlags.isTrigger(neighbor.getType())) {
                 event.setCancelled(true);
-                trySpawn(to);
-                return;
+                trySpawn(to, neighbor);
+                return true;
             }
         }
 
         // Nước chảy từ trên xuống
         Block below = to.getRelative(BlockFace.DOWN);
-        if (below.getType().name().contains("FENCE")) {
+        if (MaterialFlags.isTrigger(below.getType())) {
             event.setCancelled(true);
-            trySpawn(to);
+            trySpawn(to, below);
+            return true;
         }
+        return false;
     }
 
-    private void trySpawn(Block spawnBlock) {
+    private void trySpawn(Block spawnBlock, Block trigger) {
         if (!spawnBlock.getType().isAir()) return;
 
         Location spawnLoc = spawnBlock.getLocation();
-        Player closest = getNearestPlayer(spawnLoc);
-        int level = (closest != null) ? plugin.getPlayerLevel(closest.getUniqueId()) : 1;
-
-        // Thêm xác định world type
-        String worldType = "overworld";
-        if (spawnBlock.getWorld().getEnvironment() == World.Environment.NETHER) {
-            worldType = "nether";
-        } else if (spawnBlock.getWorld().getEnvironment() == World.Environment.THE_END) {
-            worldType = "the_end";
+        int level;
+        GeneratorRecord record = generatorStore.get(trigger);
+        if (record != null) {
+            level = generatorStore.useGenerator(trigger, record);
+        } else {
+            // Máy tạo cũ chưa có bản ghi: dùng level của đảo (chế độ đảo) hoặc của người chơi gần nhất như trước
+            UUID island = plugin.getIslandLevels().getHolder(trigger, null);
+            if (island != null) {
+                // Chưa tải xong thì dùng level 1, không đọc storage trên luồng này
+                level = plugin.getLevelCache().getOrLoad(island, 1);
+            } else {
+                Player closest = getNearestPlayer(spawnLoc);
+                level = (closest != null) ? plugin.getPlayerLevel(closest.getUniqueId()) : 1;
+            }
         }
 
-        generatorManager.spawnBlockAtDelayed(spawnLoc, worldType, level);
+        // Bảng block theo thế giới được GeneratorManager tra khi spawn thực sự chạy
+        generatorManager.spawnBlockAtDelayed(spawnLoc, level);
     }
 
     private Player getNearestPlayer(Location loc) {
-        Player closest = null;
-        double minDist = Double.MAX_VALUE;
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            double dist = player.getLocation().distance(loc);
-            if (dist < minDist && dist <= maxPlayerDistance) {
-                closest = player;
-                minDist = dist;
-            }
-        }
-        return closest;
+        // Đọc từ snapshot hiện tại để /fencegen reload có hiệu lực ngay
+        int maxPlayerDistance = generatorManager.getSnapshot().getMaxPlayerDistance();
+        return playerGrid.getNearest(loc.getWorld(), loc.getX(), loc.getY(), loc.getZ(), maxPlayerDistance);
     }
 }
-
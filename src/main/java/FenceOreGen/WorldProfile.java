@@ -0,0 +1,85 @@
+package FenceOreGen;
+
+import org.bukkit.World;
+
+/**
+ * Generator settings resolved for one loaded world: the level tables and upgrade prices chosen by world name,
+ * falling back to the world's environment and then to overworld.
+ * Built on world load and on reload, so a spawn only needs an identity lookup of its {@link World}.
+ */
+public final class WorldProfile {
+    private final String worldName;
+    private final String worldType;
+    private final String tableKey;
+    // Samplers indexed by level; missing levels point at the level 1 sampler. Null if nothing is configured.
+    private final BlockSampler[] levels;
+    // Price of each level, indexed like levels. Null if nothing is configured.
+    private final double[] upgradeCosts;
+
+    WorldProfile(String worldName, String worldType, String tableKey, BlockSampler[] levels, double[] upgradeCosts) {
+        this.worldName = worldName;
+        this.worldType = worldType;
+        this.tableKey = tableKey;
+        this.levels = levels;
+        this.upgradeCosts = upgradeCosts;
+    }
+
+    /**
+     * Environment key used in generator-levels (overworld, nether, the_end).
+     */
+    public static String environmentKey(World world) {
+        if (world == null) return "overworld";
+        return switch (world.getEnvironment()) {
+            case NETHER -> "nether";
+            case THE_END -> "the_end";
+            default -> "overworld";
+        };
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    public String getWorldType() {
+        return worldType;
+    }
+
+    /**
+     * The generator-levels key the tables came from: the world name for overrides, otherwise the environment.
+     */
+    public String getTableKey() {
+        return tableKey;
+    }
+
+    public BlockSampler getSampler(int level) {
+        if (levels == null) return null;
+        if (level >= 0 && level < levels.length) {
+            return levels[level];
+        }
+        return levels.length > 1 ? levels[1] : null;
+    }
+
+    public int getMaxLevel() {
+        if (levels == null) return 1;
+        return Math.max(levels.length - 1, 1);
+    }
+
+    /**
+     * Price of upgrading to {@code level}; 0 for level 1 and for levels the table does not have.
+     */
+    public double getUpgradeCost(int level) {
+        if (upgradeCosts == null || level < 0 || level >= upgradeCosts.length) return 0;
+        return upgradeCosts[level];
+    }
+
+    /**
+     * Prices of levels {@code from} to {@code to} inclusive, e.g. for a menu listing every upgrade.
+     */
+    public double[] getUpgradeCosts(int from, int to) {
+        double[] quotes = new double[Math.max(0, to - from + 1)];
+        for (int i = 0; i < quotes.length; i++) {
+            quotes[i] = getUpgradeCost(from + i);
+        }
+        return quotes;
+    }
+}
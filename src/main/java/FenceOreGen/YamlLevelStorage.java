@@ -0,0 +1,70 @@
+package FenceOreGen;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Stores levels under {@code levels.<uuid>} in playerdata.yml, written through a temp file and an atomic rename.
+ * Fallback for small servers: every {@link #saveAll(Map)} rewrites the whole file, however small the batch,
+ * so the cost of a flush grows with the number of players ever saved. {@link SqliteLevelStorage} is the default.
+ */
+public class YamlLevelStorage implements LevelStorage {
+    private final File file;
+    private final FileConfiguration data;
+    private final Logger logger;
+
+    public YamlLevelStorage(File file, FileConfiguration data, Logger logger) {
+        this.file = file;
+        this.data = data;
+        this.logger = logger;
+    }
+
+    @Override
+    public synchronized OptionalInt load(UUID uuid) {
+        String path = "levels." + uuid;
+        return data.isInt(path) ? OptionalInt.of(data.getInt(path)) : OptionalInt.empty();
+    }
+
+    @Override
+    public synchronized Map<UUID, Integer> loadAll() {
+        Map<UUID, Integer> levels = new HashMap<>();
+        ConfigurationSection section = data.getConfigurationSection("levels");
+        if (section == null) return levels;
+
+        for (String uuidStr : section.getKeys(false)) {
+            try {
+                levels.put(UUID.fromString(uuidStr), section.getInt(uuidStr));
+            } catch (IllegalArgumentException e) {
+                logger.warning("UUID không hợp lệ trong playerdata: " + uuidStr);
+            }
+        }
+        return levels;
+    }
+
+    @Override
+    public synchronized void saveAll(Map<UUID, Integer> levels) throws IOException {
+        for (Map.Entry<UUID, Integer> entry : levels.entrySet()) {
+            data.set("levels." + entry.getKey(), entry.getValue());
+        }
+        AtomicFiles.write(file.toPath(), data.saveToString());
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        ConfigurationSection section = data.getConfigurationSection("levels");
+        return section == null || section.getKeys(false).isEmpty();
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release, every saveAll already hit the disk
+    }
+}
@@ -0,0 +1,65 @@
+package FenceOreGen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockKeysTest {
+    // World border and the tallest supported build range
+    private static final int[] HORIZONTAL = {0, 1, -1, 15, 16, -16, -17, 123_456, -123_456, 30_000_000, -30_000_000};
+    private static final int[] VERTICAL = {0, 1, -1, -64, 62, 319, -2048, 2047};
+
+    @Test
+    void packRoundTripsNegativeAndExtremeCoordinates() {
+        for (int x : HORIZONTAL) {
+            for (int y : VERTICAL) {
+                for (int z : HORIZONTAL) {
+                    long key = BlockKeys.pack(x, y, z);
+                    assertEquals(x, BlockKeys.x(key), "x of " + x + "," + y + "," + z);
+                    assertEquals(y, BlockKeys.y(key), "y of " + x + "," + y + "," + z);
+                    assertEquals(z, BlockKeys.z(key), "z of " + x + "," + y + "," + z);
+                }
+            }
+        }
+    }
+
+    @Test
+    void neighboursGetDistinctKeys() {
+        Set<Long> keys = new HashSet<>();
+        for (int x = -2; x <= 2; x++) {
+            for (int y = -2; y <= 2; y++) {
+                for (int z = -2; z <= 2; z++) {
+                    assertTrue(keys.add(BlockKeys.pack(x, y, z)), x + "," + y + "," + z);
+                }
+            }
+        }
+    }
+
+    @Test
+    void chunkKeyRoundTripsNegativeChunks() {
+        int[] chunks = {0, 1, -1, -2, 1_875_000, -1_875_000, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int chunkX : chunks) {
+            for (int chunkZ : chunks) {
+                long key = BlockKeys.chunkKey(chunkX, chunkZ);
+                assertEquals(chunkX, BlockKeys.chunkX(key));
+                assertEquals(chunkZ, BlockKeys.chunkZ(key));
+            }
+        }
+    }
+
+    @Test
+    void chunkKeyOfFloorsNegativeBlocks() {
+        for (int x : HORIZONTAL) {
+            for (int z : HORIZONTAL) {
+                long key = BlockKeys.pack(x, -64, z);
+                assertEquals(BlockKeys.chunkKey(x >> 4, z >> 4), BlockKeys.chunkKeyOf(key));
+            }
+        }
+        assertEquals(BlockKeys.chunkKey(-1, -1), BlockKeys.chunkKeyOf(BlockKeys.pack(-1, 0, -16)));
+        assertEquals(BlockKeys.chunkKey(-2, 0), BlockKeys.chunkKeyOf(BlockKeys.pack(-17, 0, 15)));
+    }
+}
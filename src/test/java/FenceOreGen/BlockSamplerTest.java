@@ -0,0 +1,100 @@
+package FenceOreGen;
+
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockSamplerTest {
+    // Evenly spaced draws; the alias table is exact, so frequencies only drift by the grid step
+    private static final int GRID = 1_000_000;
+
+    @Test
+    void drawsMatchConfiguredChances() {
+        Map<Material, Double> chances = new LinkedHashMap<>();
+        chances.put(Material.STONE, 70.0);
+        chances.put(Material.COAL_ORE, 20.0);
+        chances.put(Material.IRON_ORE, 7.5);
+        chances.put(Material.DIAMOND_ORE, 2.5);
+        BlockSampler sampler = BlockSampler.compile(chances);
+
+        int[] counts = sweep(sampler);
+        for (int i = 0; i < sampler.size(); i++) {
+            double expected = chances.get(sampler.getMaterial(i)) / 100.0;
+            assertEquals(expected, sampler.getChance(i), 1e-12);
+            assertEquals(expected, counts[i] / (double) GRID, 1e-4, sampler.getMaterial(i).name());
+        }
+    }
+
+    @Test
+    void unnormalisedWeightsAreScaled() {
+        Map<Material, Double> chances = new LinkedHashMap<>();
+        chances.put(Material.STONE, 3.0);
+        chances.put(Material.COAL_ORE, 1.0);
+        BlockSampler sampler = BlockSampler.compile(chances);
+
+        int[] counts = sweep(sampler);
+        for (int i = 0; i < sampler.size(); i++) {
+            double expected = sampler.getMaterial(i) == Material.STONE ? 0.75 : 0.25;
+            assertEquals(expected, counts[i] / (double) GRID, 1e-4);
+        }
+    }
+
+    @Test
+    void ignoresNonPositiveAndInfiniteChances() {
+        Map<Material, Double> chances = new LinkedHashMap<>();
+        chances.put(Material.STONE, 0.0);
+        chances.put(Material.COAL_ORE, -5.0);
+        chances.put(Material.IRON_ORE, Double.NaN);
+        chances.put(Material.GOLD_ORE, Double.POSITIVE_INFINITY);
+        chances.put(Material.DIAMOND_ORE, 1.0);
+        BlockSampler sampler = BlockSampler.compile(chances);
+
+        assertEquals(1, sampler.size());
+        assertEquals(Material.DIAMOND_ORE, sampler.getMaterial(sampler.sampleIndex(0.0)));
+        assertEquals(Material.DIAMOND_ORE, sampler.getMaterial(sampler.sampleIndex(0.999999)));
+    }
+
+    @Test
+    void returnsNullWithoutPositiveChances() {
+        Map<Material, Double> chances = new LinkedHashMap<>();
+        chances.put(Material.STONE, 0.0);
+        assertNull(BlockSampler.compile(chances));
+        assertNull(BlockSampler.compile(Map.of()));
+    }
+
+    @Test
+    void sampleIndexStaysInRangeAtTheEdges() {
+        Map<Material, Double> chances = new LinkedHashMap<>();
+        chances.put(Material.STONE, 1.0);
+        chances.put(Material.COAL_ORE, 2.0);
+        chances.put(Material.IRON_ORE, 3.0);
+        BlockSampler sampler = BlockSampler.compile(chances);
+
+        for (double u : new double[]{0.0, Math.nextDown(1.0), 1.0}) {
+            int index = sampler.sampleIndex(u);
+            assertTrue(index >= 0 && index < sampler.size(), "u=" + u);
+        }
+    }
+
+    @Test
+    void countsDraws() {
+        BlockSampler sampler = BlockSampler.compile(Map.of(Material.STONE, 1.0));
+        sampler.recordDraw(0);
+        sampler.recordDraw(0);
+        assertEquals(2, sampler.getDrawCount(0));
+    }
+
+    private static int[] sweep(BlockSampler sampler) {
+        int[] counts = new int[sampler.size()];
+        for (int i = 0; i < GRID; i++) {
+            counts[sampler.sampleIndex((i + 0.5) / GRID)]++;
+        }
+        return counts;
+    }
+}
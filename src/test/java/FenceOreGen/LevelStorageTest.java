@@ -0,0 +1,80 @@
+package FenceOreGen;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LevelStorageTest {
+    @TempDir
+    Path directory;
+
+    private interface Opener {
+        LevelStorage open() throws IOException;
+    }
+
+    @Test
+    void yamlRoundTrip() throws IOException {
+        File file = directory.resolve("playerdata.yml").toFile();
+        assertRoundTrip(() -> new YamlLevelStorage(file, YamlConfiguration.loadConfiguration(file),
+                Logger.getLogger("LevelStorageTest")));
+        // Written through a temp file that is renamed away
+        assertFalse(directory.resolve("playerdata.yml.tmp").toFile().exists());
+    }
+
+    @Test
+    void sqliteRoundTrip() throws IOException {
+        File file = directory.resolve("playerdata.db").toFile();
+        assertRoundTrip(() -> new SqliteLevelStorage(file));
+    }
+
+    /**
+     * Saves, reopens and checks the levels, then updates some of them and checks again.
+     */
+    private static void assertRoundTrip(Opener opener) throws IOException {
+        Map<UUID, Integer> levels = new HashMap<>();
+        for (int i = 0; i < 50; i++) {
+            levels.put(UUID.randomUUID(), i + 1);
+        }
+
+        LevelStorage storage = opener.open();
+        assertTrue(storage.isEmpty());
+        storage.saveAll(Map.of());
+        assertTrue(storage.isEmpty());
+        storage.saveAll(levels);
+        assertFalse(storage.isEmpty());
+        storage.close();
+
+        storage = opener.open();
+        assertEquals(levels, storage.loadAll());
+        for (Map.Entry<UUID, Integer> entry : levels.entrySet()) {
+            assertEquals(OptionalInt.of(entry.getValue()), storage.load(entry.getKey()));
+        }
+        assertEquals(OptionalInt.empty(), storage.load(UUID.randomUUID()));
+
+        // A batch only touches its own rows
+        UUID changed = levels.keySet().iterator().next();
+        UUID added = UUID.randomUUID();
+        storage.saveAll(Map.of(changed, 99, added, 7));
+        storage.close();
+        levels.put(changed, 99);
+        levels.put(added, 7);
+
+        storage = opener.open();
+        assertEquals(levels, storage.loadAll());
+        assertEquals(OptionalInt.of(99), storage.load(changed));
+        storage.close();
+    }
+}
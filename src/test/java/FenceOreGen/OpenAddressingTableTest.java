@@ -0,0 +1,167 @@
+package FenceOreGen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpenAddressingTableTest {
+
+    @Test
+    void capacityIsAPowerOfTwoBelowTheLoadFactor() {
+        LongHashSet set = new LongHashSet(100);
+        int capacity = set.mask + 1;
+        assertEquals(0, capacity & (capacity - 1));
+        assertTrue(capacity * 0.5 >= 100);
+    }
+
+    @Test
+    void growsPastTheLoadFactorAndKeepsEveryEntry() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        int initial = map.mask + 1;
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i * 31L, i, -1);
+        }
+        assertTrue(map.mask + 1 > initial);
+        assertTrue(map.size() <= (map.mask + 1) * 0.5);
+        assertEquals(10_000, map.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, map.get(i * 31L, -1));
+        }
+    }
+
+    @Test
+    void removalKeepsProbeChainsIntact() {
+        // Filled right up to the load factor without growing, so probe chains are long and removals shift them back
+        LongHashSet set = new LongHashSet(32);
+        int capacity = set.mask + 1;
+        for (long key = 0; key < 32; key++) {
+            set.add(key);
+        }
+        assertEquals(capacity, set.mask + 1);
+        for (long key = 0; key < 32; key += 2) {
+            assertTrue(set.remove(key));
+        }
+        for (long key = 0; key < 32; key++) {
+            assertEquals(key % 2 == 1, set.contains(key), "key " + key);
+        }
+        assertEquals(16, set.size());
+        assertFalse(set.remove(0));
+    }
+
+    @Test
+    void longIntHashMapMatchesHashMap() {
+        Random random = new Random(1);
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> reference = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(2_000) - 1_000L;
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    int value = random.nextInt(100) + 1;
+                    Integer old = reference.put(key, value);
+                    assertEquals(old == null ? -1 : old, map.put(key, value, -1));
+                }
+                case 1 -> {
+                    Integer old = reference.remove(key);
+                    assertEquals(old == null ? -1 : old, map.remove(key, -1));
+                }
+                case 2 -> {
+                    int delta = random.nextInt(5) - 2;
+                    int updated = reference.getOrDefault(key, 0) + delta;
+                    if (updated == 0) {
+                        reference.remove(key);
+                    } else {
+                        reference.put(key, updated);
+                    }
+                    assertEquals(updated, map.addTo(key, delta));
+                }
+                default -> assertEquals((int) reference.getOrDefault(key, -1), map.get(key, -1));
+            }
+            assertEquals(reference.size(), map.size());
+        }
+        for (Map.Entry<Long, Integer> entry : reference.entrySet()) {
+            assertTrue(map.containsKey(entry.getKey()));
+            assertEquals((int) entry.getValue(), map.get(entry.getKey(), -1));
+        }
+    }
+
+    @Test
+    void addToRemovesEntriesThatReachZero() {
+        LongIntHashMap map = new LongIntHashMap();
+        assertEquals(2, map.addTo(7L, 2));
+        assertEquals(0, map.addTo(7L, -2));
+        assertFalse(map.containsKey(7L));
+        assertEquals(0, map.addTo(8L, 0));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void longHashSetMatchesHashSet() {
+        Random random = new Random(2);
+        LongHashSet set = new LongHashSet();
+        Set<Long> reference = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(2_000) - 1_000L;
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(reference.add(key), set.add(key));
+                case 1 -> assertEquals(reference.remove(key), set.remove(key));
+                default -> assertEquals(reference.contains(key), set.contains(key));
+            }
+        }
+        assertEquals(reference.size(), set.size());
+        long[] keys = set.toArray();
+        assertEquals(reference.size(), keys.length);
+        for (long key : keys) {
+            assertTrue(reference.contains(key));
+        }
+    }
+
+    @Test
+    void uuidIntMapMatchesHashMap() {
+        Random random = new Random(3);
+        UUID[] uuids = new UUID[1_000];
+        for (int i = 0; i < uuids.length; i++) {
+            // Half of the keys share their high bits so only the low half tells them apart
+            uuids[i] = i % 2 == 0 ? new UUID(42L, i) : UUID.randomUUID();
+        }
+        UuidIntMap map = new UuidIntMap();
+        Map<UUID, Integer> reference = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            UUID key = uuids[random.nextInt(uuids.length)];
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    int value = random.nextInt();
+                    reference.put(key, value);
+                    map.put(key, value);
+                }
+                case 1 -> assertEquals(reference.remove(key) != null, map.remove(key));
+                default -> assertEquals((int) reference.getOrDefault(key, -1), map.get(key, -1));
+            }
+            assertEquals(reference.size(), map.size());
+        }
+        for (UUID key : uuids) {
+            assertEquals(reference.containsKey(key), map.containsKey(key));
+        }
+    }
+
+    @Test
+    void clearEmptiesTheTable() {
+        UuidIntMap map = new UuidIntMap();
+        UUID key = UUID.randomUUID();
+        map.put(key, 5);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(key));
+        map.put(key, 6);
+        assertEquals(6, map.get(key, -1));
+    }
+}
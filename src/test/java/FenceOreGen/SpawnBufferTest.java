@@ -0,0 +1,72 @@
+package FenceOreGen;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpawnBufferTest {
+
+    @Test
+    void addLastAndRemoveFirstAreFifo() {
+        SpawnBuffer buffer = new SpawnBuffer(4);
+        for (int n = 0; n < 3; n++) {
+            buffer.addLast(n, 100 + n, n, 10 + n, 20 + n);
+        }
+        assertEquals(3, buffer.size());
+        for (int n = 0; n < 3; n++) {
+            int i = buffer.slot(0);
+            assertEquals(n, buffer.position(i));
+            assertEquals(100 + n, buffer.dueTick(i));
+            assertEquals(n, buffer.target(i));
+            assertEquals(10 + n, buffer.level(i));
+            assertEquals(20 + n, buffer.generation(i));
+            buffer.removeFirst(1);
+        }
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void addFirstGoesInFrontOfTheHead() {
+        SpawnBuffer buffer = new SpawnBuffer(4);
+        buffer.addLast(2, 0, 0, 0, 0);
+        buffer.addFirst(1, 0, 0, 0, 0);
+        buffer.addFirst(0, 0, 0, 0, 0);
+        for (int n = 0; n < 3; n++) {
+            assertEquals(n, buffer.position(buffer.slot(n)));
+        }
+    }
+
+    @Test
+    void growsWhileWrappedAroundAndKeepsOrder() {
+        SpawnBuffer buffer = new SpawnBuffer(4);
+        // Move the head off zero so the live range wraps past the end of the arrays
+        for (int n = 0; n < 3; n++) {
+            buffer.addLast(-1, 0, 0, 0, 0);
+        }
+        buffer.removeFirst(3);
+        for (int n = 0; n < 100; n++) {
+            buffer.addLast(n, n, n, n, n);
+        }
+        buffer.addFirst(-1, -1, -1, -1, -1);
+
+        assertEquals(101, buffer.size());
+        for (int n = 0; n <= 100; n++) {
+            int i = buffer.slot(n);
+            assertEquals(n - 1, buffer.position(i));
+            assertEquals(n - 1, buffer.dueTick(i));
+            assertEquals(n - 1, buffer.generation(i));
+        }
+    }
+
+    @Test
+    void clearEmptiesTheBuffer() {
+        SpawnBuffer buffer = new SpawnBuffer(2);
+        buffer.addLast(1, 0, 0, 0, 0);
+        buffer.addLast(2, 0, 0, 0, 0);
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+        buffer.addLast(3, 0, 0, 0, 0);
+        assertEquals(3, buffer.position(buffer.slot(0)));
+    }
+}
@@ -0,0 +1,240 @@
+package FenceOreGen;
+
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpawnQueueTest {
+    private final UUID uid = UUID.randomUUID();
+    private final Set<Long> unloadedChunks = new HashSet<>();
+    // Packed positions spawned during the current tick
+    private final List<Long> spawned = new ArrayList<>();
+    private World world;
+    private SpawnQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        world = (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[]{World.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getUID" -> uid;
+                    case "isChunkLoaded" -> !unloadedChunks.contains(BlockKeys.chunkKey((Integer) args[0], (Integer) args[1]));
+                    case "hashCode" -> uid.hashCode();
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "TestWorld";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        // The scheduler is only used by start() and on Folia, neither of which these tests reach
+        queue = new SpawnQueue(new TaskScheduler(null), new GeneratorMetrics(), Logger.getLogger("SpawnQueueTest"),
+                () -> false, (spawnWorld, x, y, z, level) -> spawned.add(BlockKeys.pack(x, y, z)));
+        queue.configure(100, 8, 0, 40, true, 1000);
+    }
+
+    @Test
+    void delayedSpawnRunsOnItsDueTick() {
+        queue.enqueue(world, 0, 64, 0, 1, 5);
+        for (int t = 1; t < 5; t++) {
+            assertTrue(tick().isEmpty(), "tick " + t);
+        }
+        assertEquals(1, queue.getBacklog());
+        assertEquals(List.of(BlockKeys.pack(0, 64, 0)), tick());
+        assertEquals(0, queue.getBacklog());
+    }
+
+    @Test
+    void zeroDelayRunsOnTheNextTick() {
+        queue.enqueue(world, 0, 64, 0, 1, 0);
+        assertEquals(1, tick().size());
+    }
+
+    @Test
+    void delaysLongerThanTheWheelWaitForFullTurns() {
+        // Configured for 40 ticks, so the wheel has 64 slots and this entry passes its slot three times first
+        queue.enqueue(world, 0, 64, 0, 1, 200);
+        for (int t = 1; t < 200; t++) {
+            assertTrue(tick().isEmpty(), "tick " + t);
+        }
+        assertEquals(1, tick().size());
+    }
+
+    @Test
+    void entriesSurviveAWheelResize() {
+        queue.enqueue(world, 0, 64, 0, 1, 30);
+        queue.enqueue(world, 1, 64, 0, 1, 100);
+        queue.configure(100, 8, 0, 200, true, 1000);
+        for (int t = 1; t < 30; t++) {
+            assertTrue(tick().isEmpty(), "tick " + t);
+        }
+        assertEquals(List.of(BlockKeys.pack(0, 64, 0)), tick());
+        for (int t = 31; t < 100; t++) {
+            assertTrue(tick().isEmpty(), "tick " + t);
+        }
+        assertEquals(List.of(BlockKeys.pack(1, 64, 0)), tick());
+    }
+
+    @Test
+    void cancelledSpawnNeverRuns() {
+        queue.enqueue(world, 0, 64, 0, 1, 3);
+        queue.cancel(world, 0, 64, 0);
+        for (int t = 1; t <= 5; t++) {
+            assertTrue(tick().isEmpty());
+        }
+        assertEquals(0, queue.getBacklog());
+    }
+
+    @Test
+    void cancelAroundCancelsEveryTouchingBlock() {
+        int[][] neighbours = {{1, 64, 0}, {-1, 64, 0}, {0, 64, 1}, {0, 64, -1}, {0, 65, 0}, {0, 63, 0}};
+        for (int[] n : neighbours) {
+            queue.enqueue(world, n[0], n[1], n[2], 1, 2);
+        }
+        queue.enqueue(world, 2, 64, 0, 1, 2);
+        queue.cancelAround(block(0, 64, 0));
+
+        tick();
+        assertEquals(List.of(BlockKeys.pack(2, 64, 0)), tick());
+    }
+
+    @Test
+    void entryLeftByACancelDoesNotRunForALaterRequest() {
+        // The old entry comes due first; only the request made after the cancel may run, and only on its own tick
+        queue.enqueue(world, 0, 64, 0, 1, 3);
+        queue.cancel(world, 0, 64, 0);
+        queue.enqueue(world, 0, 64, 0, 2, 10);
+        for (int t = 1; t < 10; t++) {
+            assertTrue(tick().isEmpty(), "tick " + t);
+        }
+        assertEquals(1, tick().size());
+        assertEquals(0, queue.getBacklog());
+    }
+
+    @Test
+    void requestAfterACancelRunsOnce() {
+        queue.enqueue(world, 0, 64, 0, 1, 10);
+        queue.cancel(world, 0, 64, 0);
+        queue.enqueue(world, 0, 64, 0, 2, 3);
+        int runs = 0;
+        for (int t = 1; t <= 20; t++) {
+            runs += tick().size();
+        }
+        assertEquals(1, runs);
+    }
+
+    @Test
+    void duplicateRequestsForABlockAreDropped() {
+        assertTrue(queue.enqueue(world, 0, 64, 0, 1, 0));
+        assertFalse(queue.enqueue(world, 0, 64, 0, 1, 0));
+        assertEquals(1, tick().size());
+        // Queued again once the first spawn ran
+        assertTrue(queue.enqueue(world, 0, 64, 0, 1, 0));
+    }
+
+    @Test
+    void perTickBudgetSpreadsABurstOverTicks() {
+        queue.configure(10, 100, 0, 40, true, 1000);
+        for (int i = 0; i < 25; i++) {
+            queue.enqueue(world, i * 16, 64, 0, 1, 0);
+        }
+        assertEquals(10, tick().size());
+        assertEquals(10, tick().size());
+        assertEquals(5, tick().size());
+        assertEquals(0, queue.getBacklog());
+    }
+
+    @Test
+    void perChunkBudgetDefersTheRestOfAChunk() {
+        queue.configure(100, 4, 0, 40, true, 1000);
+        for (int i = 0; i < 10; i++) {
+            queue.enqueue(world, i, 64, 0, 1, 0);
+        }
+        queue.enqueue(world, 32, 64, 0, 1, 0);
+        queue.enqueue(world, 33, 64, 0, 1, 0);
+
+        assertEquals(6, tick().size());
+        // Deferred spawns keep their order and go first
+        assertEquals(List.of(BlockKeys.pack(4, 64, 0), BlockKeys.pack(5, 64, 0), BlockKeys.pack(6, 64, 0),
+                BlockKeys.pack(7, 64, 0)), tick());
+        assertEquals(2, tick().size());
+        assertTrue(tick().isEmpty());
+    }
+
+    @Test
+    void spawnsForUnloadedChunksAreParkedUntilTheChunkLoads() {
+        unloadedChunks.add(BlockKeys.chunkKey(-1, -1));
+        queue.enqueue(world, -5, 64, -5, 1, 0);
+
+        assertTrue(tick().isEmpty());
+        assertEquals(1, queue.getParkedCount());
+
+        unloadedChunks.clear();
+        queue.onChunkLoad(chunk(-1, -1));
+        assertEquals(0, queue.getParkedCount());
+        assertEquals(List.of(BlockKeys.pack(-5, 64, -5)), tick());
+    }
+
+    @Test
+    void spawnsForUnloadedChunksAreDroppedWhenParkingIsOff() {
+        queue.configure(100, 8, 0, 40, false, 1000);
+        unloadedChunks.add(BlockKeys.chunkKey(0, 0));
+        queue.enqueue(world, 1, 64, 1, 1, 0);
+
+        assertTrue(tick().isEmpty());
+        assertEquals(0, queue.getParkedCount());
+        unloadedChunks.clear();
+        queue.onChunkLoad(chunk(0, 0));
+        assertTrue(tick().isEmpty());
+        // Nothing is left queued for the block
+        assertTrue(queue.enqueue(world, 1, 64, 1, 1, 0));
+    }
+
+    @Test
+    void parkingStopsAtTheLimit() {
+        queue.configure(100, 8, 0, 40, true, 2);
+        unloadedChunks.add(BlockKeys.chunkKey(0, 0));
+        for (int i = 0; i < 5; i++) {
+            queue.enqueue(world, i, 64, 0, 1, 0);
+        }
+        tick();
+        assertEquals(2, queue.getParkedCount());
+    }
+
+    private List<Long> tick() {
+        spawned.clear();
+        queue.tick();
+        return new ArrayList<>(spawned);
+    }
+
+    private Block block(int x, int y, int z) {
+        return (Block) Proxy.newProxyInstance(Block.class.getClassLoader(), new Class<?>[]{Block.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getWorld" -> world;
+                    case "getX" -> x;
+                    case "getY" -> y;
+                    case "getZ" -> z;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private Chunk chunk(int chunkX, int chunkZ) {
+        return (Chunk) Proxy.newProxyInstance(Chunk.class.getClassLoader(), new Class<?>[]{Chunk.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getWorld" -> world;
+                    case "getX" -> chunkX;
+                    case "getZ" -> chunkZ;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
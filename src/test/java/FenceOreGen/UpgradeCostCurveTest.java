@@ -0,0 +1,111 @@
+package FenceOreGen;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UpgradeCostCurveTest {
+    private static final Logger LOGGER = Logger.getLogger("UpgradeCostCurveTest");
+
+    @Test
+    void geometricCurveUsesTheSettingsDefaults() {
+        double[] costs = UpgradeCostCurve.compile(null, "normal", 5, 1000, 1.5, LOGGER);
+        assertArrayEquals(new double[]{0, 0, 1000, 1500, 2250, 3375}, costs, 1e-9);
+    }
+
+    @Test
+    void singleLevelTablesAreFree() {
+        assertArrayEquals(new double[]{0, 0}, UpgradeCostCurve.compile(null, "normal", 1, 1000, 1.5, LOGGER), 0);
+    }
+
+    @Test
+    void polynomialCurveRaisesTheLevelToTheExponent() throws InvalidConfigurationException {
+        ConfigurationSection section = section("""
+                curve: polynomial
+                base: 100
+                exponent: 2
+                """);
+        double[] costs = UpgradeCostCurve.compile(section, "normal", 4, 1000, 1.5, LOGGER);
+        assertArrayEquals(new double[]{0, 0, 100, 400, 900}, costs, 1e-9);
+    }
+
+    @Test
+    void worldKeysOverrideSharedKeysForThatTableOnly() throws InvalidConfigurationException {
+        ConfigurationSection section = section("""
+                base: 1000
+                multiplier: 2
+                worlds:
+                  nether:
+                    base: 50
+                """);
+        assertArrayEquals(new double[]{0, 0, 50, 100, 200},
+                UpgradeCostCurve.compile(section, "nether", 4, 1, 1, LOGGER), 1e-9);
+        assertArrayEquals(new double[]{0, 0, 1000, 2000, 4000},
+                UpgradeCostCurve.compile(section, "normal", 4, 1, 1, LOGGER), 1e-9);
+    }
+
+    @Test
+    void fixedLevelPricesWinOverTheCurve() throws InvalidConfigurationException {
+        ConfigurationSection section = section("""
+                base: 100
+                multiplier: 2
+                levels:
+                  3: 42
+                  4: 43
+                  1: 5
+                  9: 99
+                  top: 7
+                  2: cheap
+                worlds:
+                  nether:
+                    levels:
+                      4: 7
+                """);
+        // Level 1 and 9 are outside the table, "top" and "cheap" are skipped
+        assertArrayEquals(new double[]{0, 0, 100, 42, 43},
+                UpgradeCostCurve.compile(section, "normal", 4, 1, 1, LOGGER), 1e-9);
+        assertArrayEquals(new double[]{0, 0, 100, 42, 7},
+                UpgradeCostCurve.compile(section, "nether", 4, 1, 1, LOGGER), 1e-9);
+    }
+
+    @Test
+    void outOfRangeSettingsAreClamped() throws InvalidConfigurationException {
+        ConfigurationSection section = section("""
+                base: -10
+                multiplier: 0.5
+                levels:
+                  3: -1
+                """);
+        double[] costs = UpgradeCostCurve.compile(section, "normal", 3, 1000, 1.5, LOGGER);
+        assertArrayEquals(new double[]{0, 0, 0, 0}, costs, 0);
+
+        section = section("""
+                base: 10
+                multiplier: 0.5
+                """);
+        // A multiplier below 1 would make upgrades cheaper, so it is treated as 1
+        assertEquals(10, UpgradeCostCurve.compile(section, "normal", 3, 1000, 1.5, LOGGER)[3], 1e-9);
+    }
+
+    @Test
+    void unknownCurveFallsBackToGeometric() throws InvalidConfigurationException {
+        ConfigurationSection section = section("""
+                curve: cubic
+                base: 10
+                multiplier: 3
+                """);
+        assertArrayEquals(new double[]{0, 0, 10, 30}, UpgradeCostCurve.compile(section, "normal", 3, 1, 1, LOGGER), 1e-9);
+    }
+
+    private static ConfigurationSection section(String yaml) throws InvalidConfigurationException {
+        YamlConfiguration config = new YamlConfiguration();
+        config.loadFromString(yaml);
+        return config;
+    }
+}